@@ -0,0 +1,87 @@
+package com.example.travelplane.backend;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * Handle of a BackendService operation.
+ * Cancelling drops the reference to the callback, which is then never
+ * called, and skips whatever part of the operation has not started yet,
+ * including its simulated delay. A write that has already started still
+ * completes. A request bound to a lifecycle is cancelled when its owner
+ * is destroyed.
+ * All methods must be called on the thread callbacks are delivered on,
+ * the main thread unless BackendService.setCallbackExecutor changed it.
+ */
+public abstract class BackendRequest {
+
+    private volatile boolean cancelled;
+    private boolean finished;
+    private Lifecycle lifecycle;
+    private LifecycleEventObserver observer;
+
+    /**
+     * Cancel the request. Does nothing once its callback has been called.
+     */
+    public final void cancel() {
+        if (cancelled || finished) {
+            return;
+        }
+        cancelled = true;
+        unbind();
+        onCancel();
+    }
+
+    /**
+     * Whether the request was cancelled. Safe to call from any thread.
+     */
+    public final boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancel the request when a lifecycle owner, e.g. the calling activity, is destroyed
+     * @return This request
+     */
+    public final BackendRequest bindTo(LifecycleOwner owner) {
+        if (cancelled || finished || observer != null) {
+            return this;
+        }
+        Lifecycle ownerLifecycle = owner.getLifecycle();
+        if (ownerLifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            cancel();
+            return this;
+        }
+
+        lifecycle = ownerLifecycle;
+        observer = (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                cancel();
+            }
+        };
+        lifecycle.addObserver(observer);
+        return this;
+    }
+
+    /**
+     * Called by the service just before it calls the callback, on the callback thread
+     */
+    final void finish() {
+        finished = true;
+        unbind();
+    }
+
+    /**
+     * Release the callback and stop the pending work. Called once.
+     */
+    abstract void onCancel();
+
+    private void unbind() {
+        if (lifecycle != null) {
+            lifecycle.removeObserver(observer);
+            lifecycle = null;
+            observer = null;
+        }
+    }
+}
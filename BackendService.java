@@ -5,42 +5,131 @@ import android.content.SharedPreferences;
 import android.os.Handler;
 import android.os.Looper;
 
+import com.example.travelplane.backend.PriorityScheduler.Priority;
 import com.example.travelplane.models.Destination;
+import com.example.travelplane.models.ModelJson;
 import com.example.travelplane.models.TripNote;
 import com.example.travelplane.models.User;
+import com.example.travelplane.storage.BinaryFormat;
+import com.example.travelplane.storage.JournalNoteStorageEngine;
+import com.example.travelplane.storage.JsonFiles;
+import com.example.travelplane.storage.StorageFormat;
+import com.example.travelplane.storage.TripNoteRepository;
+import com.example.travelplane.storage.UserStore;
+import com.example.travelplane.storage.WriteBehindScheduler;
+import com.example.travelplane.utils.ExpiringLruCache;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Backend Service - Simulates a backend server with async operations
  * Provides CRUD operations for Users, Destinations, and Trip Notes
- * All operations are async to simulate network delay
+ * All operations are async; their simulated network delay and failures come
+ * from a pluggable LatencyModel and are scheduled rather than slept, so no
+ * worker thread is blocked while a call is "in flight"
+ * Identical reads made while one is in flight share its execution
+ * Every operation returns a BackendRequest that can cancel it, directly
+ * or when the calling activity is destroyed
  */
 public class BackendService {
 
     private static final String PREF_NAME = "TravelPlannerBackend";
+    private static final String USER_INDEX_PREF_NAME = "TravelPlannerBackendUsers";
     private static final String KEY_USERS = "backend_users";
     private static final String KEY_DESTINATIONS = "backend_destinations";
     private static final String KEY_NOTES = "backend_notes";
-    private static final int NETWORK_DELAY_MS = 500; // Simulate 500ms network delay
+    private static final String KEY_NOTE_ID_SEQUENCE = "backend_note_id_sequence";
+    private static final String NOTES_JOURNAL_FILE = "backend_notes.journal";
+    private static final String DESTINATIONS_FILE = "backend_destinations.bin";
+    private static final String LEGACY_DESTINATIONS_FILE = "backend_destinations.json";
+    private static final String DESTINATIONS_DATASET = PREF_NAME + "/" + KEY_DESTINATIONS;
+    private static final int NETWORK_DELAY_MS = 500; // Default simulated network delay
+    private static final int WORKER_COUNT = 4;
+    // Per priority class, indexed by Priority ordinal. Background and bulk
+    // work together never take every worker, so one is always left for
+    // interactive calls.
+    private static final int[] CLASS_MAX_RUNNING = {WORKER_COUNT, 2, 1};
+    private static final int[] QUEUE_CAPACITY = {64, 32, 8};
+    private static final int USER_CACHE_SIZE = 32;
+    private static final long READ_CACHE_TTL_MS = 60 * 1000;
+    private static final String ALL = "all"; // Key of the single-entry destinations cache
+
+    // Operation names passed to the LatencyModel
+    public static final String OP_REGISTER_USER = "registerUser";
+    public static final String OP_AUTHENTICATE_USER = "authenticateUser";
+    public static final String OP_GET_USER = "getUserByEmail";
+    public static final String OP_UPDATE_PASSWORD = "updateUserPassword";
+    public static final String OP_CACHE_DESTINATIONS = "cacheDestinations";
+    public static final String OP_GET_DESTINATIONS = "getCachedDestinations";
+    public static final String OP_SAVE_NOTE = "saveTripNote";
+    public static final String OP_SAVE_NOTES = "saveTripNotes";
+    public static final String OP_GET_NOTES = "getAllTripNotes";
+    public static final String OP_DELETE_NOTE = "deleteTripNote";
+    public static final String OP_DELETE_NOTES = "deleteTripNotes";
 
     private static BackendService instance;
     private final SharedPreferences preferences;
     private final Gson gson;
-    private final ExecutorService executor;
+    private final File destinationsFile;
+    private final File legacyDestinationsFile;
+    private final UserStore userStore;
+    private final TripNoteRepository notesRepository;
+    private final PriorityScheduler executor;
+    private final ScheduledThreadPoolExecutor scheduler;
     private final Handler mainHandler;
+    private volatile Executor callbackExecutor;
+    private volatile ExecutorService virtualThreadExecutor; // null unless enabled
+    private volatile LatencyModel latencyModel = LatencyModels.fixed(NETWORK_DELAY_MS);
+
+    // Destinations cached but not yet written by WriteBehindScheduler
+    private final Object destinationsLock = new Object();
+    private List<Destination> pendingDestinations;
+
+    // Parsed results of the read operations, dropped by the write operations.
+    // Users are guarded by userStore and destinations by destinationsLock,
+    // so a read cannot cache a value that a concurrent write has already
+    // replaced. Notes are not cached: the repository already keeps them in memory.
+    private final ExpiringLruCache<String, User> userCache =
+            new ExpiringLruCache<>(USER_CACHE_SIZE, READ_CACHE_TTL_MS);
+    private final ExpiringLruCache<String, List<Destination>> destinationsCache =
+            new ExpiringLruCache<>(1, READ_CACHE_TTL_MS);
+
+    // Read calls in flight by key; identical reads join them instead of running again
+    private final Map<String, SharedCall<?>> inFlight = new HashMap<>();
 
     private BackendService(Context context) {
         preferences = context.getApplicationContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         gson = new Gson();
-        executor = Executors.newFixedThreadPool(4);
+        destinationsFile = new File(context.getApplicationContext().getFilesDir(), DESTINATIONS_FILE);
+        legacyDestinationsFile = new File(context.getApplicationContext().getFilesDir(), LEGACY_DESTINATIONS_FILE);
+        userStore = new UserStore(
+                context.getApplicationContext().getSharedPreferences(USER_INDEX_PREF_NAME, Context.MODE_PRIVATE),
+                preferences, KEY_USERS);
+        notesRepository = new TripNoteRepository(new JournalNoteStorageEngine(
+                new File(context.getApplicationContext().getFilesDir(), NOTES_JOURNAL_FILE),
+                StorageFormat.BINARY, preferences, KEY_NOTES), preferences, KEY_NOTE_ID_SEQUENCE);
+        executor = new PriorityScheduler(WORKER_COUNT, CLASS_MAX_RUNNING, QUEUE_CAPACITY);
+        scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setRemoveOnCancelPolicy(true); // cancelled requests drop their delay timer
         mainHandler = new Handler(Looper.getMainLooper());
+        callbackExecutor = mainHandler::post;
+        WriteBehindScheduler.getInstance().register(DESTINATIONS_DATASET, this::flushDestinations);
     }
 
     /**
@@ -53,91 +142,121 @@ public class BackendService {
         return instance;
     }
 
-    // ==================== USER OPERATIONS ====================
+    /**
+     * Replace the simulated latency/failure model, e.g. LatencyModels.none()
+     * for load tests. Applies to calls submitted after this returns.
+     */
+    public void setLatencyModel(LatencyModel latencyModel) {
+        this.latencyModel = latencyModel;
+    }
 
     /**
-     * Register a new user (async)
+     * Deliver callbacks through another executor than the main thread, e.g.
+     * a direct executor in a JVM test harness that has no Looper running.
+     * Requests must then be cancelled from the thread callbacks run on.
+     */
+    public void setCallbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor != null ? callbackExecutor : mainHandler::post;
+    }
+
+    /**
+     * Run each operation on its own virtual thread instead of the worker
+     * pool, so a harness can keep thousands of simulated calls in flight
+     * without as many platform threads. Priority classes and queue limits
+     * do not apply in this mode. Requires a runtime with virtual threads
+     * (Java 21 or later); Android has none.
+     * @return false if virtual threads are not available; nothing changes then
      */
-    public void registerUser(User user, BackendCallback<User> callback) {
-        executor.execute(() -> {
-            simulateNetworkDelay();
+    public synchronized boolean setVirtualThreadsEnabled(boolean enabled) {
+        ExecutorService previous = virtualThreadExecutor;
+        if (enabled == (previous != null)) {
+            return true;
+        }
+        if (!enabled) {
+            virtualThreadExecutor = null;
+            previous.shutdown(); // operations already started still complete
+            return true;
+        }
+
+        try {
+            // Looked up reflectively so the class still loads where the API does not exist
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            virtualThreadExecutor = (ExecutorService) factory.invoke(null);
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
 
-            List<User> users = getAllUsersSync();
+    // ==================== USER OPERATIONS ====================
 
-            // Check if user exists
-            for (User existingUser : users) {
-                if (existingUser.getEmail().equals(user.getEmail())) {
-                    postError(callback, "User already exists");
+    /**
+     * Register a new user (async)
+     */
+    public BackendRequest registerUser(User user, BackendCallback<User> callback) {
+        return submit(OP_REGISTER_USER, callback, call -> {
+            synchronized (userStore) {
+                if (!userStore.insert(user)) {
+                    postError(call, "User already exists");
                     return;
                 }
+                invalidateUser(user.getEmail());
             }
 
-            users.add(user);
-            saveUsersSync(users);
-
-            postSuccess(callback, user);
+            postSuccess(call, user);
         });
     }
 
     /**
      * Authenticate user (async)
      */
-    public void authenticateUser(String email, String password, BackendCallback<User> callback) {
-        executor.execute(() -> {
-            simulateNetworkDelay();
-
-            List<User> users = getAllUsersSync();
-
-            for (User user : users) {
-                if (user.getEmail().equals(email) && user.getPassword().equals(password)) {
-                    postSuccess(callback, user);
-                    return;
-                }
+    public BackendRequest authenticateUser(String email, String password, BackendCallback<User> callback) {
+        return submit(OP_AUTHENTICATE_USER, callback, call -> {
+            User user = findUser(email);
+
+            if (user != null && user.getPassword().equals(password)) {
+                postSuccess(call, user);
+            } else {
+                postError(call, "Invalid credentials");
             }
-
-            postError(callback, "Invalid credentials");
         });
     }
 
     /**
      * Get user by email (async)
      */
-    public void getUserByEmail(String email, BackendCallback<User> callback) {
-        executor.execute(() -> {
-            simulateNetworkDelay();
-
-            List<User> users = getAllUsersSync();
-
-            for (User user : users) {
-                if (user.getEmail().equals(email)) {
-                    postSuccess(callback, user);
-                    return;
-                }
+    public BackendRequest getUserByEmail(String email, BackendCallback<User> callback) {
+        return submitShared(OP_GET_USER, userKey(email), callback, User::new, call -> {
+            User user = findUser(email);
+
+            if (user != null) {
+                call.onSuccess(user);
+            } else {
+                call.onError("User not found");
             }
-
-            postError(callback, "User not found");
         });
     }
 
     /**
      * Update user password (async)
      */
-    public void updateUserPassword(String email, String newPassword, BackendCallback<Boolean> callback) {
-        executor.execute(() -> {
-            simulateNetworkDelay();
-
-            List<User> users = getAllUsersSync();
-
-            for (User user : users) {
-                if (user.getEmail().equals(email)) {
+    public BackendRequest updateUserPassword(String email, String newPassword, BackendCallback<Boolean> callback) {
+        return submit(OP_UPDATE_PASSWORD, callback, call -> {
+            boolean updated = false;
+            synchronized (userStore) {
+                User user = userStore.find(email);
+                if (user != null) {
                     user.setPassword(newPassword);
-                    saveUsersSync(users);
-                    postSuccess(callback, true);
-                    return;
+                    updated = userStore.update(user);
+                    invalidateUser(email);
                 }
             }
 
-            postError(callback, "User not found");
+            if (updated) {
+                postSuccess(call, true);
+            } else {
+                postError(call, "User not found");
+            }
         });
     }
 
@@ -146,158 +265,544 @@ public class BackendService {
     /**
      * Save destinations to local cache (async)
      */
-    public void cacheDestinations(List<Destination> destinations, BackendCallback<Boolean> callback) {
-        executor.execute(() -> {
-            simulateNetworkDelay();
-
-            String json = gson.toJson(destinations);
-            preferences.edit().putString(KEY_DESTINATIONS, json).apply();
+    public BackendRequest cacheDestinations(List<Destination> destinations, BackendCallback<Boolean> callback) {
+        return submit(OP_CACHE_DESTINATIONS, callback, call -> {
+            synchronized (destinationsLock) {
+                pendingDestinations = new ArrayList<>(destinations);
+                invalidateDestinations();
+            }
+            WriteBehindScheduler.getInstance().markDirty(DESTINATIONS_DATASET);
 
-            postSuccess(callback, true);
+            postSuccess(call, true);
         });
     }
 
     /**
      * Get cached destinations (async)
      */
-    public void getCachedDestinations(BackendCallback<List<Destination>> callback) {
-        executor.execute(() -> {
-            simulateNetworkDelay();
-
-            String json = preferences.getString(KEY_DESTINATIONS, "");
-
-            if (json.isEmpty()) {
-                postSuccess(callback, new ArrayList<>());
-                return;
+    public BackendRequest getCachedDestinations(BackendCallback<List<Destination>> callback) {
+        return submitShared(OP_GET_DESTINATIONS, OP_GET_DESTINATIONS, callback, ArrayList::new, call -> {
+            List<Destination> destinations;
+            synchronized (destinationsLock) {
+                destinations = pendingDestinations != null ? pendingDestinations : destinationsCache.get(ALL);
+                if (destinations == null) {
+                    try {
+                        destinations = readDestinations();
+                    } catch (IOException | RuntimeException e) {
+                        call.onError("Failed to load cached destinations");
+                        return;
+                    }
+                    destinationsCache.put(ALL, destinations);
+                }
             }
 
-            try {
-                Type type = new TypeToken<List<Destination>>() {}.getType();
-                List<Destination> destinations = gson.fromJson(json, type);
-                postSuccess(callback, destinations != null ? destinations : new ArrayList<>());
-            } catch (Exception e) {
-                postError(callback, "Failed to load cached destinations");
-            }
+            call.onSuccess(new ArrayList<>(destinations));
         });
     }
 
+    /**
+     * Read the stored destinations from whichever format is on disk.
+     * Caller holds destinationsLock.
+     */
+    private List<Destination> readDestinations() throws IOException {
+        if (destinationsFile.exists()) {
+            return BinaryFormat.readDestinations(destinationsFile);
+        }
+
+        // JSON cache written by an older version
+        if (legacyDestinationsFile.exists()) {
+            return JsonFiles.readList(legacyDestinationsFile, ModelJson.DESTINATION);
+        }
+
+        // Cache written by an older version
+        String json = preferences.getString(KEY_DESTINATIONS, "");
+        if (json.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Type type = new TypeToken<List<Destination>>() {}.getType();
+        List<Destination> destinations = gson.fromJson(json, type);
+        return destinations != null ? destinations : new ArrayList<>();
+    }
+
     // ==================== TRIP NOTES OPERATIONS ====================
 
     /**
      * Save trip note (async)
      */
-    public void saveTripNote(TripNote note, BackendCallback<TripNote> callback) {
-        executor.execute(() -> {
-            simulateNetworkDelay();
-
-            List<TripNote> notes = getAllNotesSync();
+    public BackendRequest saveTripNote(TripNote note, BackendCallback<TripNote> callback) {
+        return submit(OP_SAVE_NOTE, callback, call -> {
+            synchronized (notesRepository) {
+                // Generate ID if new note
+                if (note.getId() == 0) {
+                    note.setId(notesRepository.nextId());
+                    note.setTimestamp(System.currentTimeMillis());
+                }
 
-            // Generate ID if new note
-            if (note.getId() == 0) {
-                int newId = notes.isEmpty() ? 1 : notes.get(notes.size() - 1).getId() + 1;
-                note.setId(newId);
-                note.setTimestamp(System.currentTimeMillis());
+                notesRepository.put(note);
+                invalidateNotes();
             }
 
-            notes.add(note);
-            saveNotesSync(notes);
+            postSuccess(call, note);
+        });
+    }
+
+    /**
+     * Save many trip notes as one batch (async)
+     * All valid notes are stored with a single in-memory update and a single
+     * durable write; the callback reports the outcome of each note.
+     */
+    public BackendRequest saveTripNotes(List<TripNote> notes, BackendCallback<BatchResult<TripNote>> callback) {
+        return submit(OP_SAVE_NOTES, callback, call -> {
+            BatchResult<TripNote> result = new BatchResult<>();
+            List<TripNote> valid = new ArrayList<>(notes.size());
+
+            synchronized (notesRepository) {
+                List<TripNote> added = new ArrayList<>();
+                long now = System.currentTimeMillis();
+
+                for (TripNote note : notes) {
+                    if (note == null) {
+                        result.addFailure(null, "Note is null");
+                        continue;
+                    }
+                    if (note.getTitle() == null || note.getTitle().trim().isEmpty()) {
+                        result.addFailure(note, "Title is required");
+                        continue;
+                    }
+
+                    // Generate ID if new note
+                    if (note.getId() == 0) {
+                        added.add(note);
+                        note.setTimestamp(now);
+                    }
+                    valid.add(note);
+                    result.addSuccess(note);
+                }
+
+                // One block of IDs for the whole batch
+                if (!added.isEmpty()) {
+                    int nextId = notesRepository.reserveIds(added.size());
+                    for (TripNote note : added) {
+                        note.setId(nextId++);
+                    }
+                }
+
+                if (!valid.isEmpty()) {
+                    notesRepository.putAll(valid);
+                    invalidateNotes();
+                }
+            }
 
-            postSuccess(callback, note);
+            postSuccess(call, result);
         });
     }
 
     /**
      * Get all trip notes (async)
      */
-    public void getAllTripNotes(BackendCallback<List<TripNote>> callback) {
-        executor.execute(() -> {
-            simulateNetworkDelay();
-
-            List<TripNote> notes = getAllNotesSync();
-            postSuccess(callback, notes);
+    public BackendRequest getAllTripNotes(BackendCallback<List<TripNote>> callback) {
+        return submitShared(OP_GET_NOTES, OP_GET_NOTES, callback, BackendService::copyNotes, call -> {
+            // Copies, so callers may modify the notes they get
+            call.onSuccess(notesRepository.getAll());
         });
     }
 
     /**
      * Delete trip note (async)
      */
-    public void deleteTripNote(int noteId, BackendCallback<Boolean> callback) {
-        executor.execute(() -> {
-            simulateNetworkDelay();
+    public BackendRequest deleteTripNote(int noteId, BackendCallback<Boolean> callback) {
+        return submit(OP_DELETE_NOTE, callback, call -> {
+            boolean deleted;
+            synchronized (notesRepository) {
+                deleted = notesRepository.delete(noteId);
+                invalidateNotes();
+            }
 
-            List<TripNote> notes = getAllNotesSync();
+            if (deleted) {
+                postSuccess(call, true);
+            } else {
+                postError(call, "Note not found");
+            }
+        });
+    }
 
-            for (int i = 0; i < notes.size(); i++) {
-                if (notes.get(i).getId() == noteId) {
-                    notes.remove(i);
-                    saveNotesSync(notes);
-                    postSuccess(callback, true);
-                    return;
+    /**
+     * Delete many trip notes as one batch (async)
+     * The callback reports, for each ID, whether the note was found.
+     */
+    public BackendRequest deleteTripNotes(int[] noteIds, BackendCallback<BatchResult<Integer>> callback) {
+        return submit(OP_DELETE_NOTES, callback, call -> {
+            boolean[] removed;
+            synchronized (notesRepository) {
+                removed = notesRepository.deleteAll(noteIds);
+                invalidateNotes();
+            }
+
+            BatchResult<Integer> result = new BatchResult<>();
+            for (int i = 0; i < noteIds.length; i++) {
+                if (removed[i]) {
+                    result.addSuccess(noteIds[i]);
+                } else {
+                    result.addFailure(noteIds[i], "Note not found");
                 }
             }
 
-            postError(callback, "Note not found");
+            postSuccess(call, result);
         });
     }
 
-    // ==================== SYNC OPERATIONS (INTERNAL) ====================
+    // ==================== COMPOSITE OPERATIONS ====================
 
-    private List<User> getAllUsersSync() {
-        String json = preferences.getString(KEY_USERS, "");
-        if (json.isEmpty()) {
-            return new ArrayList<>();
+    /**
+     * Load a user's profile, trip notes and cached destinations in parallel (async)
+     * The callback gets all three at once, or the first error. An error in
+     * one part, or cancelling the returned request, cancels the others.
+     */
+    public BackendRequest loadUserData(String email, BackendCallback<UserData> callback) {
+        UserData data = new UserData();
+        CompositeRequest<UserData> composite = new CompositeRequest<>(callback, () -> data);
+        composite.add(getUserByEmail(email, composite.part(data::setUser)));
+        composite.add(getAllTripNotes(composite.part(data::setNotes)));
+        composite.add(getCachedDestinations(composite.part(data::setDestinations)));
+        composite.seal();
+        return composite;
+    }
+
+    /**
+     * Write the pending destinations; runs on the write-behind thread
+     */
+    private void flushDestinations() {
+        List<Destination> snapshot;
+        synchronized (destinationsLock) {
+            snapshot = pendingDestinations;
+        }
+        if (snapshot == null) {
+            return;
         }
 
         try {
-            Type type = new TypeToken<List<User>>() {}.getType();
-            List<User> users = gson.fromJson(json, type);
-            return users != null ? users : new ArrayList<>();
-        } catch (Exception e) {
-            return new ArrayList<>();
+            BinaryFormat.writeDestinations(destinationsFile, snapshot);
+            legacyDestinationsFile.delete();
+            preferences.edit().remove(KEY_DESTINATIONS).apply();
+        } catch (IOException e) {
+            return; // keep the snapshot pending; the next cacheDestinations retries
+        }
+
+        synchronized (destinationsLock) {
+            if (pendingDestinations == snapshot) {
+                pendingDestinations = null;
+            }
         }
     }
 
-    private void saveUsersSync(List<User> users) {
-        String json = gson.toJson(users);
-        preferences.edit().putString(KEY_USERS, json).apply();
+    // ==================== UTILITY METHODS ====================
+
+    /**
+     * Find a user through the read cache
+     * @return A copy of the user, or null if not found
+     */
+    private User findUser(String email) {
+        String key = UserStore.normalizeEmail(email);
+        User user;
+        synchronized (userStore) {
+            user = userCache.get(key);
+            if (user == null) {
+                user = userStore.find(email);
+                if (user == null) {
+                    return null;
+                }
+                userCache.put(key, user);
+            }
+        }
+        return new User(user);
     }
 
-    private List<TripNote> getAllNotesSync() {
-        String json = preferences.getString(KEY_NOTES, "");
-        if (json.isEmpty()) {
-            return new ArrayList<>();
+    private static List<TripNote> copyNotes(List<TripNote> notes) {
+        List<TripNote> copies = new ArrayList<>(notes.size());
+        for (TripNote note : notes) {
+            copies.add(new TripNote(note));
+        }
+        return copies;
+    }
+
+    private static String userKey(String email) {
+        return OP_GET_USER + "/" + UserStore.normalizeEmail(email);
+    }
+
+    // The invalidate methods run under the lock of the data they invalidate
+
+    private void invalidateUser(String email) {
+        userCache.remove(UserStore.normalizeEmail(email));
+        detach(userKey(email));
+    }
+
+    private void invalidateNotes() {
+        detach(OP_GET_NOTES);
+    }
+
+    private void invalidateDestinations() {
+        destinationsCache.remove(ALL);
+        detach(OP_GET_DESTINATIONS);
+    }
+
+    /**
+     * Run an operation after its simulated delay. The delay is a timer on the
+     * scheduler thread; the worker pool only sees the task once it is due.
+     * A cancelled request drops its timer, and a task whose request was
+     * cancelled while queued returns without doing any work.
+     * @param task Reports its outcome to the call it is given
+     */
+    private <T> Call<T> submit(String operation, BackendCallback<T> callback, Task<T> task) {
+        LatencyModel model = latencyModel;
+        long delayMs = model.delayMillis(operation);
+        String failure = model.failure(operation);
+
+        Call<T> call = new Call<>(callback);
+        call.work = () -> {
+            if (call.isCancelled()) {
+                return;
+            }
+            if (failure == null) {
+                task.run(call);
+            } else {
+                postError(call, failure);
+            }
+        };
+        Priority priority = priorityOf(operation);
+        if (delayMs <= 0) {
+            dispatch(priority, call);
+        } else {
+            call.setDelay(scheduler.schedule(() -> dispatch(priority, call), delayMs, TimeUnit.MILLISECONDS));
         }
+        return call;
+    }
 
+    /**
+     * Queue the work of a call, or fail the call if its priority class is saturated
+     */
+    private <T> void dispatch(Priority priority, Call<T> call) {
+        ExecutorService perTask = virtualThreadExecutor;
+        if (perTask != null) {
+            try {
+                perTask.execute(call.work);
+                return;
+            } catch (RejectedExecutionException e) {
+                // Switched off meanwhile; use the worker pool
+            }
+        }
         try {
-            Type type = new TypeToken<List<TripNote>>() {}.getType();
-            List<TripNote> notes = gson.fromJson(json, type);
-            return notes != null ? notes : new ArrayList<>();
-        } catch (Exception e) {
-            return new ArrayList<>();
+            executor.execute(priority, call.work);
+        } catch (RejectedExecutionException e) {
+            postError(call, "Service busy, please try again");
         }
     }
 
-    private void saveNotesSync(List<TripNote> notes) {
-        String json = gson.toJson(notes);
-        preferences.edit().putString(KEY_NOTES, json).apply();
+    /**
+     * Priority class of an operation: calls the user waits on are
+     * interactive, refreshes are background and batch writes are bulk
+     */
+    private static Priority priorityOf(String operation) {
+        switch (operation) {
+            case OP_GET_DESTINATIONS:
+                return Priority.BACKGROUND;
+            case OP_CACHE_DESTINATIONS:
+            case OP_SAVE_NOTES:
+            case OP_DELETE_NOTES:
+                return Priority.BULK;
+            default:
+                return Priority.INTERACTIVE;
+        }
     }
 
-    // ==================== UTILITY METHODS ====================
+    /**
+     * Run a read operation, or join the identical one already in flight.
+     * Every caller of a shared call gets the same outcome, each with its
+     * own copy of the result. The shared execution is cancelled once all
+     * of its callers are.
+     * @param key Identifies identical reads, e.g. the operation and its arguments
+     * @param copier Copies the result for the second and later callers
+     * @param task Reports its outcome to the call it is given, on the worker thread
+     */
+    private <T> BackendRequest submitShared(String operation, String key, BackendCallback<T> callback,
+                                            ResultCopier<T> copier, Task<T> task) {
+        Call<T> call = new Call<>(callback);
+        synchronized (inFlight) {
+            @SuppressWarnings("unchecked")
+            SharedCall<T> shared = (SharedCall<T>) inFlight.get(key);
+            boolean first = shared == null;
+            if (first) {
+                shared = new SharedCall<>(key, copier);
+                inFlight.put(key, shared);
+            }
+            // Joined before submitting: a rejected call may finish right away
+            shared.callers.add(call);
+            call.shared = shared;
+            if (first) {
+                shared.execution = submit(operation, shared, task);
+            }
+        }
+        return call;
+    }
 
-    private void simulateNetworkDelay() {
-        try {
-            Thread.sleep(NETWORK_DELAY_MS);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    /**
+     * Stop new reads from joining the call in flight for a key, which may
+     * have read the data before a write. It still completes for the callers
+     * it already has.
+     */
+    private void detach(String key) {
+        synchronized (inFlight) {
+            inFlight.remove(key);
         }
     }
 
     private <T> void postSuccess(BackendCallback<T> callback, T data) {
-        mainHandler.post(() -> callback.onSuccess(data));
+        callbackExecutor.execute(() -> callback.onSuccess(data));
     }
 
     private <T> void postError(BackendCallback<T> callback, String error) {
-        mainHandler.post(() -> callback.onError(error));
+        callbackExecutor.execute(() -> callback.onError(error));
+    }
+
+    private interface Task<T> {
+        void run(BackendCallback<T> call);
+    }
+
+    private interface ResultCopier<T> {
+        T copy(T result);
+    }
+
+    /**
+     * Request handed out by the service. Forwards the outcome to the
+     * caller's callback unless cancelled first.
+     */
+    private final class Call<T> extends BackendRequest implements BackendCallback<T> {
+
+        private BackendCallback<T> callback; // null once cancelled or delivered; guarded by this
+        private Future<?> delay; // guarded by this
+        Runnable work;
+        SharedCall<T> shared; // read this call waits on, if any
+
+        Call(BackendCallback<T> callback) {
+            this.callback = callback;
+        }
+
+        synchronized void setDelay(Future<?> delay) {
+            if (isCancelled()) {
+                delay.cancel(false);
+            } else {
+                this.delay = delay;
+            }
+        }
+
+        @Override
+        void onCancel() {
+            synchronized (this) {
+                callback = null;
+                if (delay != null) {
+                    delay.cancel(false);
+                }
+            }
+            executor.remove(work); // frees its queue slot if it has not started
+            if (shared != null) {
+                shared.leave(this);
+            }
+        }
+
+        // Called on the callback thread, except for the execution of a
+        // SharedCall, which is never bound to a lifecycle
+
+        @Override
+        public void onSuccess(T data) {
+            BackendCallback<T> target = take();
+            if (target != null) {
+                target.onSuccess(data);
+            }
+        }
+
+        @Override
+        public void onError(String error) {
+            BackendCallback<T> target = take();
+            if (target != null) {
+                target.onError(error);
+            }
+        }
+
+        private BackendCallback<T> take() {
+            BackendCallback<T> target;
+            synchronized (this) {
+                target = callback;
+                callback = null;
+            }
+            if (target != null) {
+                finish();
+            }
+            return target;
+        }
+    }
+
+    /**
+     * Read call shared by every identical request made while it is in flight
+     */
+    private final class SharedCall<T> implements BackendCallback<T> {
+
+        final String key;
+        final ResultCopier<T> copier;
+        final List<Call<T>> callers = new ArrayList<>(); // guarded by inFlight
+        BackendRequest execution; // guarded by inFlight
+
+        SharedCall(String key, ResultCopier<T> copier) {
+            this.key = key;
+            this.copier = copier;
+        }
+
+        @Override
+        public void onSuccess(T data) {
+            List<Call<T>> waiting = finish();
+            for (int i = 0; i < waiting.size(); i++) {
+                postSuccess(waiting.get(i), i == 0 ? data : copier.copy(data));
+            }
+        }
+
+        @Override
+        public void onError(String error) {
+            for (Call<T> caller : finish()) {
+                postError(caller, error);
+            }
+        }
+
+        /**
+         * Remove a cancelled caller; cancel the execution if it was the last one
+         */
+        void leave(Call<T> caller) {
+            BackendRequest abandoned = null;
+            synchronized (inFlight) {
+                if (callers.remove(caller) && callers.isEmpty()) {
+                    if (inFlight.get(key) == this) {
+                        inFlight.remove(key);
+                    }
+                    abandoned = execution;
+                }
+            }
+            if (abandoned != null) {
+                abandoned.cancel();
+            }
+        }
+
+        /**
+         * Close the call to new callers
+         * @return The callers to notify
+         */
+        private List<Call<T>> finish() {
+            synchronized (inFlight) {
+                if (inFlight.get(key) == this) {
+                    inFlight.remove(key);
+                }
+                List<Call<T>> waiting = new ArrayList<>(callers);
+                callers.clear();
+                return waiting;
+            }
+        }
     }
 
     /**
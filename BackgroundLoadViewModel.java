@@ -0,0 +1,116 @@
+package com.example.travelplane.viewmodels;
+
+import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Base ViewModel that runs a storage read on a background executor and
+ * publishes the result as a LoadState on the main thread.
+ * It outlives configuration changes, so a recreated activity observes the
+ * last result instead of loading again.
+ *
+ * @param <T> Loaded data type
+ */
+public abstract class BackgroundLoadViewModel<T> extends AndroidViewModel {
+
+    private static final String TAG = "BackgroundLoad";
+
+    // Shared by all screens; storage reads are short
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2);
+
+    private final MutableLiveData<LoadState<T>> state = new MutableLiveData<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int generation;
+
+    protected BackgroundLoadViewModel(@NonNull Application application) {
+        super(application);
+    }
+
+    public LiveData<LoadState<T>> getState() {
+        return state;
+    }
+
+    /**
+     * Load unless a load was already started, e.g. before a configuration change
+     */
+    public void load() {
+        if (state.getValue() == null) {
+            reload();
+        }
+    }
+
+    /**
+     * Publish data that is already available, e.g. from a warm cache,
+     * superseding any load in progress. Must be called on the main thread.
+     */
+    protected void setLoaded(T data) {
+        generation++;
+        state.setValue(LoadState.success(data));
+    }
+
+    /**
+     * Load again, superseding any load in progress. The previous data stays
+     * available through the LOADING state. Must be called on the main thread.
+     */
+    public void reload() {
+        reloadAfter(null);
+    }
+
+    /**
+     * Run a storage write on the background executor, then reload
+     * @param write Write to run before loading, or null
+     */
+    protected void reloadAfter(final Runnable write) {
+        final int current = ++generation;
+        LoadState<T> previous = state.getValue();
+        final T previousData = previous != null ? previous.getData() : null;
+        state.setValue(LoadState.loading(previousData));
+
+        EXECUTOR.execute(() -> {
+            LoadState<T> result;
+            try {
+                if (write != null) {
+                    write.run();
+                }
+                result = LoadState.success(loadInBackground());
+            } catch (Exception e) {
+                Log.e(TAG, "Background load failed", e);
+                result = LoadState.error(e.getMessage(), previousData);
+            }
+
+            final LoadState<T> delivered = result;
+            mainHandler.post(() -> {
+                if (current == generation) {
+                    state.setValue(delivered);
+                }
+            });
+        });
+    }
+
+    /**
+     * Run other background work of the screen on the shared executor
+     */
+    protected static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    @Override
+    protected void onCleared() {
+        generation++; // drop results that arrive after the screen is gone
+    }
+
+    /**
+     * Read the data; runs on a background thread
+     */
+    protected abstract T loadInBackground() throws Exception;
+}
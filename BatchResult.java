@@ -0,0 +1,91 @@
+package com.example.travelplane.backend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-item outcome of a BackendService batch operation.
+ * Items are reported in the same order as the request.
+ *
+ * @param <T> Item type
+ */
+public class BatchResult<T> {
+
+    private final List<Item<T>> items = new ArrayList<>();
+    private int failureCount;
+
+    void addSuccess(T value) {
+        items.add(new Item<>(items.size(), value, null));
+    }
+
+    void addFailure(T value, String error) {
+        items.add(new Item<>(items.size(), value, error));
+        failureCount++;
+    }
+
+    /**
+     * @return All item results in request order
+     */
+    public List<Item<T>> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * @return Values of the items that succeeded
+     */
+    public List<T> getSucceeded() {
+        List<T> succeeded = new ArrayList<>(items.size() - failureCount);
+        for (Item<T> item : items) {
+            if (item.isSuccess()) {
+                succeeded.add(item.getValue());
+            }
+        }
+        return succeeded;
+    }
+
+    public int getSuccessCount() {
+        return items.size() - failureCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Result of a single item in a batch
+     */
+    public static class Item<T> {
+        private final int index;
+        private final T value;
+        private final String error;
+
+        Item(int index, T value, String error) {
+            this.index = index;
+            this.value = value;
+            this.error = error;
+        }
+
+        /**
+         * @return Position of the item in the request
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return Error message, or null if the item succeeded
+         */
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.travelplane.storage;
+
+import com.example.travelplane.models.Destination;
+import com.example.travelplane.models.TripNote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding for notes and destinations.
+ * Files start with a header: 4-byte magic "TPB1", a schema version byte and
+ * a file kind byte. Integers are zigzag varints and strings are a varint
+ * length (0 for null, otherwise length + 1) followed by UTF-8 bytes, so
+ * field names and decimal timestamps are no longer repeated per record.
+ */
+public final class BinaryFormat {
+
+    public static final int SCHEMA_VERSION = 1;
+    public static final int HEADER_SIZE = 6;
+
+    public static final int KIND_NOTE_JOURNAL = 1;
+    public static final int KIND_DESTINATIONS = 2;
+    public static final int KIND_DESTINATION_CATALOG = 3;
+    public static final int KIND_DELETED_DESTINATIONS = 4;
+
+    private static final byte[] MAGIC = {'T', 'P', 'B', '1'};
+
+    private BinaryFormat() {
+    }
+
+    // ==================== HEADER ====================
+
+    public static void writeHeader(OutputStream out, int kind) throws IOException {
+        out.write(MAGIC);
+        out.write(SCHEMA_VERSION);
+        out.write(kind);
+    }
+
+    /**
+     * Read and validate a header
+     * @throws IOException if the magic, version or kind do not match
+     */
+    public static void readHeader(InputStream in, int expectedKind) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        readFully(in, header, 0, HEADER_SIZE);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                throw new IOException("Not a binary storage file");
+            }
+        }
+        if (header[4] > SCHEMA_VERSION) {
+            throw new IOException("Unsupported schema version " + header[4]);
+        }
+        if (header[5] != expectedKind) {
+            throw new IOException("Unexpected file kind " + header[5]);
+        }
+    }
+
+    /**
+     * Check whether a file starts with the binary magic
+     */
+    public static boolean isBinaryFile(File file) {
+        if (!file.exists() || file.length() < MAGIC.length) {
+            return false;
+        }
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            byte[] magic = new byte[MAGIC.length];
+            readFully(in, magic, 0, magic.length);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                    // Nothing useful to do
+                }
+            }
+        }
+    }
+
+    /**
+     * Open a binary file for reading, positioned after its header
+     */
+    public static InputStream openForRead(File file, int kind) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            readHeader(in, kind);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    // ==================== FILES ====================
+
+    /**
+     * Read a destinations file: header, varint count, then the records
+     */
+    public static List<Destination> readDestinations(File file) throws IOException {
+        InputStream in = openForRead(file, KIND_DESTINATIONS);
+        try {
+            int count = readVarInt(in);
+            if (count < 0) {
+                throw new IOException("Negative record count");
+            }
+            List<Destination> destinations = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                destinations.add(readDestination(in));
+            }
+            return destinations;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Write a destinations file atomically (temp file + rename)
+     */
+    public static void writeDestinations(File file, List<Destination> destinations) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream fileOut = new FileOutputStream(tmp);
+        OutputStream out = new BufferedOutputStream(fileOut);
+        try {
+            writeHeader(out, KIND_DESTINATIONS);
+            writeVarInt(out, destinations.size());
+            for (Destination destination : destinations) {
+                writeDestination(out, destination);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not rename " + tmp);
+        }
+    }
+
+    // ==================== MODELS ====================
+
+    public static void writeTripNote(OutputStream out, TripNote note) throws IOException {
+        writeVarInt(out, note.getId());
+        writeString(out, note.getTitle());
+        writeString(out, note.getDescription());
+        writeVarLong(out, note.getTimestamp());
+        writeString(out, note.getImageUri());
+    }
+
+    public static TripNote readTripNote(InputStream in) throws IOException {
+        TripNote note = new TripNote();
+        note.setId(readVarInt(in));
+        note.setTitle(readString(in));
+        note.setDescription(readString(in));
+        note.setTimestamp(readVarLong(in));
+        note.setImageUri(readString(in));
+        return note;
+    }
+
+    public static void writeDestination(OutputStream out, Destination destination) throws IOException {
+        writeVarInt(out, destination.getUserId());
+        writeVarInt(out, destination.getId());
+        writeString(out, destination.getTitle());
+        writeString(out, destination.getBody());
+    }
+
+    public static Destination readDestination(InputStream in) throws IOException {
+        Destination destination = new Destination();
+        destination.setUserId(readVarInt(in));
+        destination.setId(readVarInt(in));
+        destination.setTitle(readString(in));
+        destination.setBody(readString(in));
+        return destination;
+    }
+
+    // ==================== PRIMITIVES ====================
+
+    public static void writeVarInt(OutputStream out, int value) throws IOException {
+        writeVarLong(out, value);
+    }
+
+    public static int readVarInt(InputStream in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    /**
+     * Zigzag varint: small magnitudes, positive or negative, take few bytes
+     */
+    public static void writeVarLong(OutputStream out, long value) throws IOException {
+        writeUnsignedVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    public static long readVarLong(InputStream in) throws IOException {
+        long raw = readUnsignedVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public static void writeUnsignedVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Number of bytes writeUnsignedVarLong uses for a value
+     */
+    public static int unsignedVarLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    public static long readUnsignedVarLong(InputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeUnsignedVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsignedVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a string written by writeString. The stream must report the
+     * bytes left through available(), as byte array, mapped buffer and file
+     * streams do, so a corrupt length fails here instead of allocating it.
+     */
+    public static String readString(InputStream in) throws IOException {
+        long length = readUnsignedVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > in.available()) {
+            // Also what a torn write looks like, so reported as running out of data
+            throw new EOFException("String length " + (length - 1) + " exceeds the " + in.available() + " bytes left");
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        readFully(in, bytes, 0, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void readFully(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+        while (length > 0) {
+            int read = in.read(buffer, offset, length);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            offset += read;
+            length -= read;
+        }
+    }
+}
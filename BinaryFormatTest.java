@@ -0,0 +1,163 @@
+package com.example.travelplane.storage;
+
+import com.example.travelplane.models.Destination;
+import com.example.travelplane.models.TripNote;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round-trips of the binary encoding, and rejection of corrupt input
+ */
+public class BinaryFormatTest {
+
+    private static final long[] LONGS = {
+            0, 1, -1, 63, -64, 64, -65, 127, 128, 300, -300,
+            Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE
+    };
+
+    @Test
+    public void varLongRoundTrips() throws IOException {
+        for (long value : LONGS) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BinaryFormat.writeVarLong(out, value);
+            InputStream in = input(out);
+            assertEquals(value, BinaryFormat.readVarLong(in));
+            assertEquals("no bytes left after " + value, 0, in.available());
+        }
+    }
+
+    @Test
+    public void varIntRoundTrips() throws IOException {
+        int[] values = {0, 1, -1, 1000, -1000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int value : values) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BinaryFormat.writeVarInt(out, value);
+            assertEquals(value, BinaryFormat.readVarInt(input(out)));
+        }
+    }
+
+    @Test
+    public void smallMagnitudesTakeOneByte() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryFormat.writeVarInt(out, -64);
+        BinaryFormat.writeVarInt(out, 63);
+        assertEquals(2, out.size());
+    }
+
+    @Test
+    public void unsignedVarLongSizeMatchesEncoding() throws IOException {
+        for (long value : LONGS) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BinaryFormat.writeUnsignedVarLong(out, value);
+            assertEquals("size of " + value, out.size(), BinaryFormat.unsignedVarLongSize(value));
+            assertEquals(value, BinaryFormat.readUnsignedVarLong(input(out)));
+        }
+    }
+
+    @Test
+    public void truncatedVarintIsEndOfData() {
+        byte[] continued = {(byte) 0x80, (byte) 0x80};
+        assertThrows(EOFException.class,
+                () -> BinaryFormat.readUnsignedVarLong(new ByteArrayInputStream(continued)));
+    }
+
+    @Test
+    public void overlongVarintIsRejected() {
+        byte[] overlong = new byte[11];
+        Arrays.fill(overlong, (byte) 0x80);
+        assertThrows(IOException.class,
+                () -> BinaryFormat.readUnsignedVarLong(new ByteArrayInputStream(overlong)));
+    }
+
+    @Test
+    public void stringsRoundTrip() throws IOException {
+        String[] values = {null, "", "a", "Café del Mar", "東京", "emoji 🌍", repeat('x', 5000)};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String value : values) {
+            BinaryFormat.writeString(out, value);
+        }
+        InputStream in = input(out);
+        for (String value : values) {
+            assertEquals(value, BinaryFormat.readString(in));
+        }
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void corruptStringLengthFailsWithoutAllocatingIt() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryFormat.writeUnsignedVarLong(out, Integer.MAX_VALUE); // about 2 GB
+        out.write(new byte[16]);
+        assertThrows(EOFException.class, () -> BinaryFormat.readString(input(out)));
+
+        ByteArrayOutputStream huge = new ByteArrayOutputStream();
+        BinaryFormat.writeUnsignedVarLong(huge, Long.MAX_VALUE);
+        assertThrows(IOException.class, () -> BinaryFormat.readString(input(huge)));
+    }
+
+    @Test
+    public void stringCutShortIsEndOfData() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryFormat.writeString(out, "Lisbon");
+        byte[] bytes = out.toByteArray();
+        byte[] cut = Arrays.copyOf(bytes, bytes.length - 2);
+        assertThrows(EOFException.class, () -> BinaryFormat.readString(new ByteArrayInputStream(cut)));
+    }
+
+    @Test
+    public void tripNoteRoundTrips() throws IOException {
+        TripNote note = new TripNote(42, "Kyoto", "Temples and gardens", 1700000000000L, "content://images/7");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryFormat.writeTripNote(out, note);
+
+        TripNote read = BinaryFormat.readTripNote(input(out));
+        assertEquals(42, read.getId());
+        assertEquals("Kyoto", read.getTitle());
+        assertEquals("Temples and gardens", read.getDescription());
+        assertEquals(1700000000000L, read.getTimestamp());
+        assertEquals("content://images/7", read.getImageUri());
+    }
+
+    @Test
+    public void destinationRoundTrips() throws IOException {
+        Destination destination = new Destination(Destination.USER_CREATED_USER_ID, 9, "Porto", null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryFormat.writeDestination(out, destination);
+
+        Destination read = BinaryFormat.readDestination(input(out));
+        assertEquals(Destination.USER_CREATED_USER_ID, read.getUserId());
+        assertEquals(9, read.getId());
+        assertEquals("Porto", read.getTitle());
+        assertNull(read.getBody());
+    }
+
+    @Test
+    public void headerOfAnotherKindIsRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryFormat.writeHeader(out, BinaryFormat.KIND_DESTINATIONS);
+        assertEquals(BinaryFormat.HEADER_SIZE, out.size());
+        BinaryFormat.readHeader(input(out), BinaryFormat.KIND_DESTINATIONS);
+        assertThrows(IOException.class, () -> BinaryFormat.readHeader(input(out), BinaryFormat.KIND_NOTE_JOURNAL));
+    }
+
+    private static InputStream input(ByteArrayOutputStream out) {
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.travelplane.backend;
+
+import com.example.travelplane.backend.BackendService.BackendCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request made of several BackendService calls running in parallel.
+ * It succeeds with one combined result once every part has succeeded.
+ * The first part to fail, or cancelling the composite, cancels the parts
+ * still running, so no part outlives the composite.
+ * Usage: create part callbacks with part(), add() the requests started
+ * with them, then seal().
+ *
+ * @param <R> Combined result type
+ */
+final class CompositeRequest<R> extends BackendRequest {
+
+    /**
+     * Stores the result of one part
+     */
+    interface Setter<T> {
+        void set(T value);
+    }
+
+    /**
+     * Builds the combined result once all parts have been set
+     */
+    interface Combiner<R> {
+        R combine();
+    }
+
+    private final Combiner<R> combiner;
+    private final List<BackendRequest> parts = new ArrayList<>();
+    private BackendCallback<R> callback; // null once cancelled or delivered
+    private int pending;
+    private boolean sealed;
+
+    CompositeRequest(BackendCallback<R> callback, Combiner<R> combiner) {
+        this.callback = callback;
+        this.combiner = combiner;
+    }
+
+    /**
+     * Create the callback of a new part
+     */
+    synchronized <T> BackendCallback<T> part(Setter<T> setter) {
+        pending++;
+        return new BackendCallback<T>() {
+            @Override
+            public void onSuccess(T data) {
+                synchronized (CompositeRequest.this) {
+                    if (callback == null) {
+                        return;
+                    }
+                    setter.set(data);
+                    pending--;
+                }
+                completeIfDone();
+            }
+
+            @Override
+            public void onError(String error) {
+                fail(error);
+            }
+        };
+    }
+
+    /**
+     * Track the request of a part so it can be cancelled with the composite
+     */
+    void add(BackendRequest part) {
+        synchronized (this) {
+            if (callback != null) {
+                parts.add(part);
+                return;
+            }
+        }
+        part.cancel(); // the composite already failed or was cancelled
+    }
+
+    /**
+     * Mark the end of the parts; the composite can complete from now on
+     */
+    void seal() {
+        synchronized (this) {
+            sealed = true;
+        }
+        completeIfDone();
+    }
+
+    @Override
+    void onCancel() {
+        List<BackendRequest> running;
+        synchronized (this) {
+            callback = null;
+            running = new ArrayList<>(parts);
+        }
+        for (BackendRequest part : running) {
+            part.cancel();
+        }
+    }
+
+    private void completeIfDone() {
+        BackendCallback<R> target;
+        synchronized (this) {
+            if (!sealed || pending > 0 || callback == null) {
+                return;
+            }
+            target = callback;
+            callback = null;
+        }
+        finish();
+        target.onSuccess(combiner.combine());
+    }
+
+    private void fail(String error) {
+        BackendCallback<R> target;
+        List<BackendRequest> running;
+        synchronized (this) {
+            if (callback == null) {
+                return;
+            }
+            target = callback;
+            callback = null;
+            running = new ArrayList<>(parts);
+        }
+        for (BackendRequest part : running) {
+            part.cancel();
+        }
+        finish();
+        target.onError(error);
+    }
+}
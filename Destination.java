@@ -1,12 +1,18 @@
 package com.example.travelplane.models;
 
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 
 /**
  * Model class representing a Travel Destination
  * Maps to API response from JSONPlaceholder
+ * Serialized by DestinationTypeAdapter; the SerializedName values document the API fields
  */
+@JsonAdapter(DestinationTypeAdapter.class)
 public class Destination {
+    /** userId of destinations added in the app rather than loaded from the API */
+    public static final int USER_CREATED_USER_ID = 999;
+
     @SerializedName("userId")
     private int userId;
 
@@ -1,37 +1,75 @@
 package com.example.travelplane.adapters;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseBooleanArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.travelplane.R;
 import com.example.travelplane.models.Destination;
+import com.example.travelplane.storage.DestinationCatalog;
+import com.example.travelplane.storage.DestinationSource;
+import com.example.travelplane.storage.FilteredDestinationSource;
+import com.example.travelplane.storage.ListDestinationSource;
+import com.example.travelplane.storage.PagedDestinationSource;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Adapter for displaying Travel Destinations in a RecyclerView.
  * Each item shows the destination title, description (body), and id.
  * Supports both list and grid view modes.
+ * Rows are read from a DestinationSource at bind time, so a memory-mapped
+ * DestinationCatalog only decodes the rows that are actually shown.
+ * Source changes are diffed by ID on a background thread and dispatched
+ * as fine-grained insert/remove/move/change events; changed rows only
+ * update the views of the changed fields. Sources over the same catalog
+ * snapshot are diffed by ID alone, without decoding rows; superseded
+ * diffs are abandoned, and very large changes skip the diff.
+ * Rows are selected by ID with a long press, for bulk actions.
  */
 public class DestinationAdapter extends RecyclerView.Adapter<DestinationAdapter.DestinationViewHolder> {
 
-    // List of destinations to display
-    private List<Destination> destinations;
+    private static final String TAG = "DestinationAdapter";
+
+    // Change payload flags, combined into an Integer
+    public static final int PAYLOAD_TITLE = 1;
+    public static final int PAYLOAD_BODY = 1 << 1;
+    public static final int PAYLOAD_SELECTION = 1 << 2;
+
+    // Shared by all adapters; only the latest diff of each adapter is applied
+    private static final ExecutorService DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    // Above this many rows (old + new) a change is shown without diffing
+    private static final int MAX_DIFF_ROWS = 2000;
+
+    // Destinations to display
+    private DestinationSource source;
+    private volatile int diffGeneration; // read by the diff thread to abandon superseded diffs
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private boolean isGridView = false;
     private OnDestinationDeleteListener deleteListener;
     private OnDestinationClickListener clickListener;
+    private OnSelectionChangedListener selectionListener;
+    private final SparseBooleanArray selectedIds = new SparseBooleanArray();
 
     /**
      * Interface for handling destination deletion
      */
     public interface OnDestinationDeleteListener {
-        void onDeleteDestination(int position);
+        void onDeleteDestination(Destination destination);
     }
 
     /**
@@ -41,20 +79,27 @@ public class DestinationAdapter extends RecyclerView.Adapter<DestinationAdapter.
         void onDestinationClick(Destination destination);
     }
 
+    /**
+     * Interface for following the multi-selection
+     */
+    public interface OnSelectionChangedListener {
+        void onSelectionChanged(int selectedCount);
+    }
+
     public DestinationAdapter() {
-        // Initialize with an empty list to avoid null checks
-        this.destinations = new ArrayList<>();
+        this(null, null);
     }
 
     public DestinationAdapter(OnDestinationDeleteListener listener) {
-        this.destinations = new ArrayList<>();
-        this.deleteListener = listener;
+        this(listener, null);
     }
 
     public DestinationAdapter(OnDestinationDeleteListener listener, OnDestinationClickListener clickListener) {
-        this.destinations = new ArrayList<>();
+        // Initialize with an empty source to avoid null checks
+        this.source = new ListDestinationSource(null);
         this.deleteListener = listener;
         this.clickListener = clickListener;
+        setHasStableIds(true);
     }
 
     public void setDeleteListener(OnDestinationDeleteListener listener) {
@@ -65,18 +110,196 @@ public class DestinationAdapter extends RecyclerView.Adapter<DestinationAdapter.
         this.clickListener = clickListener;
     }
 
+    public void setSelectionListener(OnSelectionChangedListener selectionListener) {
+        this.selectionListener = selectionListener;
+    }
+
     /**
      * Update the destinations list and refresh the RecyclerView.
      *
      * @param destinations New list of destinations
      */
     public void setDestinations(List<Destination> destinations) {
-        if (destinations == null) {
-            this.destinations = new ArrayList<>();
+        setSource(new ListDestinationSource(destinations));
+    }
+
+    /**
+     * Display destinations from a source. The difference from the current
+     * source is computed in the background; the rows keep showing the
+     * current source until it is applied. Must be called on the main thread.
+     *
+     * @param newSource Source to read rows from at bind time; must not change afterwards
+     */
+    public void setSource(DestinationSource newSource) {
+        final DestinationSource current = source;
+        final DestinationSource target = newSource != null ? newSource : new ListDestinationSource(null);
+        final int generation = ++diffGeneration;
+
+        if (current.size() == 0 || target.size() == 0) {
+            // Nothing to match up
+            int oldSize = current.size();
+            source = target;
+            if (oldSize > 0) {
+                notifyItemRangeRemoved(0, oldSize);
+            }
+            if (target.size() > 0) {
+                notifyItemRangeInserted(0, target.size());
+            }
+            return;
+        }
+        if ((long) current.size() + target.size() > MAX_DIFF_ROWS) {
+            // Diffing costs more than rebinding the few visible rows
+            source = target;
+            notifyDataSetChanged();
+            return;
+        }
+
+        DIFF_EXECUTOR.execute(() -> {
+            if (generation != diffGeneration) {
+                return; // superseded while queued
+            }
+            DiffUtil.DiffResult result;
+            try {
+                result = DiffUtil.calculateDiff(new SourceDiffCallback(current, target, generation));
+            } catch (DiffSuperseded e) {
+                return;
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to diff destinations", e);
+                result = null;
+            }
+
+            final DiffUtil.DiffResult diff = result;
+            mainHandler.post(() -> {
+                if (generation != diffGeneration) {
+                    return; // superseded by a newer source
+                }
+                source = target;
+                if (diff != null) {
+                    diff.dispatchUpdatesTo(DestinationAdapter.this);
+                } else {
+                    notifyDataSetChanged();
+                }
+            });
+        });
+    }
+
+    /**
+     * Display a source expected to show the same rows as the current one,
+     * such as the catalog remapped after removeDestinations(). When the IDs
+     * match in order the rows are kept without diffing or rebinding;
+     * otherwise this falls back to setSource(). Must be called on the main thread.
+     */
+    public void replaceSource(DestinationSource newSource) {
+        if (newSource == null || !hasSameIds(source, newSource)) {
+            setSource(newSource);
+            return;
+        }
+        ++diffGeneration; // a pending diff targets an older source
+        source = newSource;
+    }
+
+    private static boolean hasSameIds(DestinationSource a, DestinationSource b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.getId(i) != b.getId(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remove the rows of some destinations right away, ahead of the storage
+     * write. Positions are looked up by ID now, so they cannot be stale.
+     * Must be called on the main thread.
+     * @return Number of rows removed
+     */
+    public int removeDestinations(int... destinationIds) {
+        int[] ids = destinationIds.clone();
+        Arrays.sort(ids);
+        int size = source.size();
+        int[] kept = new int[size];
+        int[] removed = new int[Math.min(ids.length, size)];
+        int keptCount = 0;
+        int removedCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (removedCount < removed.length && Arrays.binarySearch(ids, source.getId(i)) >= 0) {
+                removed[removedCount++] = i;
+            } else {
+                kept[keptCount++] = i;
+            }
+        }
+        for (int id : ids) {
+            selectedIds.delete(id);
+        }
+        if (removedCount == 0) {
+            return 0;
+        }
+
+        ++diffGeneration; // a pending diff was computed against the old rows
+        source = new FilteredDestinationSource(source, Arrays.copyOf(kept, keptCount));
+        // From the end, so the positions still to notify stay valid
+        for (int i = removedCount - 1; i >= 0; ) {
+            int end = i;
+            while (i > 0 && removed[i - 1] == removed[i] - 1) {
+                i--;
+            }
+            if (end == i) {
+                notifyItemRemoved(removed[i]);
+            } else {
+                notifyItemRangeRemoved(removed[i], end - i + 1);
+            }
+            i--;
+        }
+        return removedCount;
+    }
+
+    public boolean isSelecting() {
+        return selectedIds.size() > 0;
+    }
+
+    /**
+     * IDs of the selected destinations
+     */
+    public int[] getSelectedIds() {
+        int[] ids = new int[selectedIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = selectedIds.keyAt(i);
+        }
+        return ids;
+    }
+
+    public void clearSelection() {
+        if (selectedIds.size() == 0) {
+            return;
+        }
+        selectedIds.clear();
+        notifyItemRangeChanged(0, source.size(), PAYLOAD_SELECTION);
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(0);
+        }
+    }
+
+    private void toggleSelection(int position) {
+        int id = source.getId(position);
+        if (selectedIds.get(id)) {
+            selectedIds.delete(id);
         } else {
-            this.destinations = destinations;
+            selectedIds.put(id, true);
         }
-        notifyDataSetChanged();
+        notifyItemChanged(position, PAYLOAD_SELECTION);
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(selectedIds.size());
+        }
+    }
+
+    /**
+     * Get the destination shown at a position
+     */
+    public Destination getDestination(int position) {
+        return source.get(position);
     }
 
     /**
@@ -98,15 +321,37 @@ public class DestinationAdapter extends RecyclerView.Adapter<DestinationAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull DestinationViewHolder holder, int position) {
-        // Get the destination for this position and bind it to the ViewHolder
-        Destination destination = destinations.get(position);
-        holder.bind(destination, position);
+        // Decode the destination for this position and bind it to the ViewHolder
+        Destination destination = source.get(position);
+        holder.bind(destination);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull DestinationViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        int changes = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof Integer) {
+                changes |= (Integer) payload;
+            }
+        }
+        holder.bindChanges(source.get(position), changes);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        // Read from the offset table for catalogs, without decoding the row
+        return source.getId(position);
     }
 
     @Override
     public int getItemCount() {
         // Return how many items we have in the list
-        return destinations != null ? destinations.size() : 0;
+        return source.size();
     }
 
     /**
@@ -127,38 +372,167 @@ public class DestinationAdapter extends RecyclerView.Adapter<DestinationAdapter.
             tvId = itemView.findViewById(R.id.tvDestinationId);
             btnDelete = itemView.findViewById(R.id.btnDeleteDestination);
 
-            itemView.setOnClickListener(v -> {
-                if (clickListener != null) {
+            // Listeners are set once; rows can move without a rebind, so read the position at click time
+            if (btnDelete != null) {
+                btnDelete.setOnClickListener(v -> {
                     int pos = getBindingAdapterPosition();
-                    if (pos != RecyclerView.NO_POSITION && destinations != null && pos < destinations.size()) {
-                        clickListener.onDestinationClick(destinations.get(pos));
+                    if (deleteListener != null && pos != RecyclerView.NO_POSITION && pos < source.size()) {
+                        deleteListener.onDeleteDestination(source.get(pos));
                     }
+                });
+            }
+
+            itemView.setOnClickListener(v -> {
+                int pos = getBindingAdapterPosition();
+                if (pos == RecyclerView.NO_POSITION || pos >= source.size()) {
+                    return;
+                }
+                if (isSelecting()) {
+                    toggleSelection(pos);
+                } else if (clickListener != null) {
+                    clickListener.onDestinationClick(source.get(pos));
                 }
             });
+
+            itemView.setOnLongClickListener(v -> {
+                int pos = getBindingAdapterPosition();
+                if (pos == RecyclerView.NO_POSITION || pos >= source.size()) {
+                    return false;
+                }
+                toggleSelection(pos);
+                return true;
+            });
         }
 
         /**
          * Bind destination data to views.
          *
          * @param destination Destination object to display
-         * @param position Position in list
          */
-        public void bind(Destination destination, int position) {
+        public void bind(Destination destination) {
             if (destination == null) {
                 return;
             }
-            tvTitle.setText(destination.getTitle());
-            tvDescription.setText(destination.getBody());
             tvId.setText("ID: " + destination.getId());
+            bindChanges(destination, PAYLOAD_TITLE | PAYLOAD_BODY | PAYLOAD_SELECTION);
+        }
 
-            // Set delete button click listener
-            if (btnDelete != null) {
-                btnDelete.setOnClickListener(v -> {
-                    if (deleteListener != null) {
-                        deleteListener.onDeleteDestination(position);
-                    }
-                });
+        /**
+         * Update only the views for the changed fields.
+         *
+         * @param destination Destination object to display
+         * @param changes PAYLOAD_* flags
+         */
+        public void bindChanges(Destination destination, int changes) {
+            if (destination == null) {
+                return;
+            }
+            if ((changes & PAYLOAD_TITLE) != 0) {
+                tvTitle.setText(destination.getTitle());
+            }
+            if ((changes & PAYLOAD_BODY) != 0) {
+                tvDescription.setText(destination.getBody());
+            }
+            if ((changes & PAYLOAD_SELECTION) != 0) {
+                itemView.setActivated(selectedIds.get(destination.getId()));
+            }
+        }
+    }
+
+    /**
+     * Underlying source of paged and filtered views, e.g. their catalog
+     */
+    private static DestinationSource rootOf(DestinationSource source) {
+        while (true) {
+            if (source instanceof PagedDestinationSource) {
+                source = ((PagedDestinationSource) source).getSource();
+            } else if (source instanceof FilteredDestinationSource) {
+                source = ((FilteredDestinationSource) source).getSource();
+            } else {
+                return source;
+            }
+        }
+    }
+
+    /**
+     * Whether two sources read the same records, so equal IDs mean equal contents
+     */
+    private static boolean haveSameRecords(DestinationSource a, DestinationSource b) {
+        DestinationSource rootA = rootOf(a);
+        DestinationSource rootB = rootOf(b);
+        return rootA == rootB
+                || (rootA instanceof DestinationCatalog && rootB instanceof DestinationCatalog
+                        && ((DestinationCatalog) rootA).sharesRecordsWith((DestinationCatalog) rootB));
+    }
+
+    /**
+     * Thrown on the diff thread when a newer source replaced the one being diffed
+     */
+    private static final class DiffSuperseded extends RuntimeException {
+    }
+
+    /**
+     * Matches rows by destination ID between two sources
+     */
+    private class SourceDiffCallback extends DiffUtil.Callback {
+
+        private final DestinationSource oldSource;
+        private final DestinationSource newSource;
+        private final boolean sameRecords;
+        private final int generation;
+
+        SourceDiffCallback(DestinationSource oldSource, DestinationSource newSource, int generation) {
+            this.sameRecords = haveSameRecords(oldSource, newSource);
+            // Decode contents from below any paging, so diffing does not churn the page caches
+            this.oldSource = oldSource instanceof PagedDestinationSource
+                    ? ((PagedDestinationSource) oldSource).getSource() : oldSource;
+            this.newSource = newSource instanceof PagedDestinationSource
+                    ? ((PagedDestinationSource) newSource).getSource() : newSource;
+            this.generation = generation;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldSource.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newSource.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            if (generation != diffGeneration) {
+                throw new DiffSuperseded();
+            }
+            return oldSource.getId(oldItemPosition) == newSource.getId(newItemPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            if (sameRecords) {
+                return true; // called only for rows with the same ID
+            }
+            Destination oldItem = oldSource.get(oldItemPosition);
+            Destination newItem = newSource.get(newItemPosition);
+            return oldItem.getUserId() == newItem.getUserId()
+                    && Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    && Objects.equals(oldItem.getBody(), newItem.getBody());
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            Destination oldItem = oldSource.get(oldItemPosition);
+            Destination newItem = newSource.get(newItemPosition);
+            int changes = 0;
+            if (!Objects.equals(oldItem.getTitle(), newItem.getTitle())) {
+                changes |= PAYLOAD_TITLE;
+            }
+            if (!Objects.equals(oldItem.getBody(), newItem.getBody())) {
+                changes |= PAYLOAD_BODY;
             }
+            return changes;
         }
     }
 }
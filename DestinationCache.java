@@ -0,0 +1,96 @@
+package com.example.travelplane.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.travelplane.storage.DestinationCatalog;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Application-scoped cache of the mapped destination catalog.
+ * TravelPlaneApplication warms it in the background at process start, so
+ * DestinationsActivity can show the catalog on its first frame. After a
+ * mutation the catalog is remapped on the next get(), which only writes
+ * the pending changes and re-reads the offset table; records are still
+ * decoded on demand.
+ */
+public class DestinationCache {
+
+    private static final String TAG = "DestinationCache";
+
+    private static DestinationCache instance;
+
+    private final DestinationStorage storage;
+    private final ExecutorService warmer = Executors.newSingleThreadExecutor();
+
+    private DestinationCatalog catalog;
+    private long catalogVersion;
+
+    public static synchronized DestinationCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new DestinationCache(new DestinationStorage(context.getApplicationContext()));
+        }
+        return instance;
+    }
+
+    private DestinationCache(DestinationStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Map the catalog in the background if it is not cached yet, then
+     * build the search index
+     */
+    public void warmUp() {
+        warmer.execute(() -> {
+            try {
+                get();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to warm destination catalog", e);
+            }
+            storage.prepareSearch();
+        });
+    }
+
+    /**
+     * Get the cached catalog without blocking
+     * @return The catalog, possibly out of date, or null if not loaded yet
+     */
+    public synchronized DestinationCatalog peek() {
+        return catalog;
+    }
+
+    /**
+     * @return true if there is no cached catalog or the destinations changed since it was mapped
+     */
+    public synchronized boolean isStale() {
+        return catalog == null || catalogVersion != storage.getVersion();
+    }
+
+    /**
+     * Get the current catalog, remapping it first if the destinations
+     * changed. May write and map files, so call it off the main thread.
+     */
+    public DestinationCatalog get() throws IOException {
+        synchronized (this) {
+            if (!isStale()) {
+                return catalog;
+            }
+        }
+
+        // Read the version first: a change made while mapping leaves the result stale
+        long version = storage.getVersion();
+        DestinationCatalog fresh = storage.openCatalog();
+        fresh.getFilterIndex(); // built here so filtering never waits for it on the main thread
+        synchronized (this) {
+            if (catalog == null || version >= catalogVersion) {
+                catalog = fresh;
+                catalogVersion = version;
+            }
+        }
+        return fresh;
+    }
+}
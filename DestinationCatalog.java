@@ -0,0 +1,310 @@
+package com.example.travelplane.storage;
+
+import com.example.travelplane.models.Destination;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only destination catalog accessed through a memory-mapped file.
+ * Layout: BinaryFormat header, record count (4 bytes), an offset table of
+ * (id, offset) int pairs, then the records encoded by BinaryFormat.
+ * Only the mapping is kept, not the records: get() decodes a single row,
+ * so heap usage does not grow with catalog size. Records deleted since the
+ * file was written can be hidden with without(), so a delete does not have
+ * to rewrite the file. Safe to read from any thread.
+ */
+public class DestinationCatalog implements DestinationSource {
+
+    private static final int COUNT_OFFSET = BinaryFormat.HEADER_SIZE;
+    private static final int TABLE_OFFSET = COUNT_OFFSET + 4;
+    private static final int ENTRY_SIZE = 8; // id + record offset
+
+    private final ByteBuffer buffer;
+    private final int recordCount; // records in the file
+    private final int[] live; // record index of each position, or null when no record is hidden
+    private final int count;
+    private DestinationFilterIndex filterIndex; // built on first use
+
+    private DestinationCatalog(ByteBuffer buffer, int recordCount, int[] live) {
+        this.buffer = buffer;
+        this.recordCount = recordCount;
+        this.live = live;
+        this.count = live != null ? live.length : recordCount;
+    }
+
+    /**
+     * Map a catalog file and validate its offset table
+     * @throws IOException if the file is missing or not a valid catalog
+     */
+    public static DestinationCatalog open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        MappedByteBuffer buffer;
+        try {
+            // The mapping stays valid after the channel is closed
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+
+        byte[] header = new byte[BinaryFormat.HEADER_SIZE];
+        if (buffer.limit() < TABLE_OFFSET) {
+            throw new IOException("Truncated catalog");
+        }
+        buffer.get(header);
+        BinaryFormat.readHeader(new ByteArrayInputStream(header), BinaryFormat.KIND_DESTINATION_CATALOG);
+
+        int count = buffer.getInt(COUNT_OFFSET);
+        long recordsStart = TABLE_OFFSET + (long) count * ENTRY_SIZE;
+        if (count < 0 || recordsStart > buffer.limit()) {
+            throw new IOException("Corrupt catalog offset table");
+        }
+        long previous = recordsStart;
+        for (int i = 0; i < count; i++) {
+            int offset = buffer.getInt(TABLE_OFFSET + i * ENTRY_SIZE + 4);
+            if (offset < previous || offset > buffer.limit()) {
+                throw new IOException("Corrupt catalog offset table");
+            }
+            previous = offset;
+        }
+        return new DestinationCatalog(buffer, count, null);
+    }
+
+    /**
+     * Whether two catalogs read the same mapping, e.g. one is a without()
+     * view of the other, so records with the same ID are identical
+     */
+    public boolean sharesRecordsWith(DestinationCatalog other) {
+        return other != null && buffer == other.buffer;
+    }
+
+    /**
+     * View of this catalog without some IDs. Only the offset table is read;
+     * the mapping is shared.
+     * @param sortedIds IDs to hide, in ascending order
+     */
+    public DestinationCatalog without(int[] sortedIds) {
+        if (sortedIds.length == 0) {
+            return this;
+        }
+        int[] visible = new int[count];
+        int visibleCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (Arrays.binarySearch(sortedIds, getId(i)) < 0) {
+                visible[visibleCount++] = recordIndex(i);
+            }
+        }
+        if (visibleCount == count) {
+            return this;
+        }
+        return new DestinationCatalog(buffer, recordCount, Arrays.copyOf(visible, visibleCount));
+    }
+
+    /**
+     * Write a catalog file atomically (temp file + rename)
+     */
+    public static void write(File file, List<Destination> destinations) throws IOException {
+        int count = destinations.size();
+        int recordsStart = TABLE_OFFSET + count * ENTRY_SIZE;
+        int[] offsets = new int[count];
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            offsets[i] = recordsStart + records.size();
+            BinaryFormat.writeDestination(records, destinations.get(i));
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream fileOut = new FileOutputStream(tmp);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        try {
+            BinaryFormat.writeHeader(out, BinaryFormat.KIND_DESTINATION_CATALOG);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeInt(destinations.get(i).getId());
+                out.writeInt(offsets[i]);
+            }
+            records.writeTo(out);
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not rename " + tmp);
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int getId(int position) {
+        return buffer.getInt(TABLE_OFFSET + recordIndex(position) * ENTRY_SIZE);
+    }
+
+    /**
+     * Decode the record at a position
+     * @throws IllegalStateException if the record is corrupt
+     */
+    @Override
+    public Destination get(int position) {
+        try {
+            return BinaryFormat.readDestination(new ByteBufferInputStream(record(position)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt catalog record " + position, e);
+        }
+    }
+
+    /**
+     * Get the userId at a position; only the start of the record is decoded
+     * @throws IllegalStateException if the record is corrupt
+     */
+    public int getUserId(int position) {
+        try {
+            // userId is the first field of a record
+            return BinaryFormat.readVarInt(new ByteBufferInputStream(record(position)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt catalog record " + position, e);
+        }
+    }
+
+    /**
+     * Get the title at a position; the body is not decoded
+     * @throws IllegalStateException if the record is corrupt
+     */
+    public String getTitle(int position) {
+        try {
+            InputStream in = new ByteBufferInputStream(record(position));
+            BinaryFormat.readVarInt(in); // userId
+            BinaryFormat.readVarInt(in); // id
+            return BinaryFormat.readString(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt catalog record " + position, e);
+        }
+    }
+
+    /**
+     * Get the precomputed filters and sort orders of this snapshot, building them on first use
+     */
+    public synchronized DestinationFilterIndex getFilterIndex() {
+        if (filterIndex == null) {
+            filterIndex = new DestinationFilterIndex(this);
+        }
+        return filterIndex;
+    }
+
+    /**
+     * Bytes of the record at a position
+     */
+    private ByteBuffer record(int position) {
+        int index = recordIndex(position);
+        int start = buffer.getInt(TABLE_OFFSET + index * ENTRY_SIZE + 4);
+        int end = index + 1 < recordCount
+                ? buffer.getInt(TABLE_OFFSET + (index + 1) * ENTRY_SIZE + 4)
+                : buffer.limit();
+
+        // Each caller gets its own cursor over the shared mapping
+        ByteBuffer record = buffer.duplicate();
+        record.limit(end);
+        record.position(start);
+        return record;
+    }
+
+    /**
+     * Find the position of an ID by scanning the offset table
+     * @return The position, or -1 if not found
+     */
+    public int indexOfId(int destinationId) {
+        for (int i = 0; i < count; i++) {
+            if (getId(i) == destinationId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the positions of a set of IDs by scanning the offset table
+     * @param sortedIds IDs in ascending order
+     * @return Positions of the IDs present, in catalog order
+     */
+    public int[] positionsOf(int[] sortedIds) {
+        int[] positions = new int[Math.min(sortedIds.length, count)];
+        int found = 0;
+        for (int i = 0; i < count && found < positions.length; i++) {
+            if (Arrays.binarySearch(sortedIds, getId(i)) >= 0) {
+                positions[found++] = i;
+            }
+        }
+        return found == positions.length ? positions : Arrays.copyOf(positions, found);
+    }
+
+    /**
+     * Decode every record into a list
+     */
+    public List<Destination> toList() {
+        List<Destination> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Index in the offset table of the record shown at a position
+     */
+    private int recordIndex(int position) {
+        if (position < 0 || position >= count) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + count);
+        }
+        return live != null ? live[position] : position;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
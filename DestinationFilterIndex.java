@@ -0,0 +1,258 @@
+package com.example.travelplane.storage;
+
+import com.example.travelplane.utils.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Precomputed filters and sort orders over one DestinationCatalog snapshot.
+ * Built in a single pass over the offset table and the leading userId of
+ * each record, without decoding titles or bodies. ID ranges are answered
+ * by binary search over the sorted IDs; userId buckets are cached as
+ * bitsets over catalog positions. Filters return BitSets so they can be
+ * combined with and/or/andNot before positions() turns them into rows.
+ * Sort orders are permutations of catalog positions, so changing the
+ * display order never rewrites the catalog.
+ * Thread-safe; returned BitSets are the caller's to modify.
+ */
+public class DestinationFilterIndex {
+
+    private final DestinationCatalog catalog;
+    private final int size;
+    private final int[] sortedIds;
+    private final int[] positionsById; // catalog position of each entry of sortedIds
+    private final int[] userIds; // by catalog position
+    private final IntObjectMap<BitSet> byUserId = new IntObjectMap<>(); // guarded by this
+    private int[] byTitle; // positions by title, built on first use; guarded by this
+
+    /**
+     * Index a catalog. Reads every offset table entry and record header,
+     * so build it off the main thread for large catalogs.
+     */
+    public DestinationFilterIndex(DestinationCatalog catalog) {
+        this.catalog = catalog;
+        size = catalog.size();
+        userIds = new int[size];
+        long[] idAndPosition = new long[size];
+        for (int i = 0; i < size; i++) {
+            userIds[i] = catalog.getUserId(i);
+            // Sorting id << 32 | position orders by ID, then by position
+            idAndPosition[i] = ((long) catalog.getId(i) << 32) | i;
+        }
+        Arrays.sort(idAndPosition);
+
+        sortedIds = new int[size];
+        positionsById = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedIds[i] = (int) (idAndPosition[i] >> 32);
+            positionsById[i] = (int) idAndPosition[i];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Every row
+     */
+    public BitSet all() {
+        BitSet result = new BitSet(size);
+        result.set(0, size);
+        return result;
+    }
+
+    /**
+     * Rows with an ID in [minId, maxId]
+     */
+    public BitSet idRange(int minId, int maxId) {
+        BitSet result = new BitSet(size);
+        if (minId > maxId) {
+            return result;
+        }
+        int end = upperBound(maxId);
+        for (int i = lowerBound(minId); i < end; i++) {
+            result.set(positionsById[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Rows with one of the given IDs, e.g. search results
+     * @param ids IDs in any order
+     */
+    public BitSet ids(int[] ids) {
+        BitSet result = new BitSet(size);
+        for (int id : ids) {
+            int end = upperBound(id);
+            for (int i = lowerBound(id); i < end; i++) {
+                result.set(positionsById[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rows created by a user; computed once per userId, then cached
+     */
+    public BitSet userId(int userId) {
+        synchronized (this) {
+            BitSet bucket = byUserId.get(userId);
+            if (bucket == null) {
+                bucket = new BitSet(size);
+                for (int i = 0; i < size; i++) {
+                    if (userIds[i] == userId) {
+                        bucket.set(i);
+                    }
+                }
+                byUserId.put(userId, bucket);
+            }
+            return (BitSet) bucket.clone();
+        }
+    }
+
+    /**
+     * Rows not created by a user
+     */
+    public BitSet notUserId(int userId) {
+        BitSet result = all();
+        result.andNot(userId(userId));
+        return result;
+    }
+
+    /**
+     * Split the IDs into consecutive ranges holding about the same number
+     * of rows, e.g. for filter choices that follow the data
+     * @return {minId, maxId} pairs in ascending order; fewer than requested
+     *         if there are not enough distinct IDs
+     */
+    public List<int[]> idRanges(int count) {
+        List<int[]> ranges = new ArrayList<>(count);
+        int start = 0;
+        for (int r = 0; r < count && start < size; r++) {
+            int end = (int) ((long) size * (r + 1) / count); // exclusive
+            if (end <= start) {
+                continue;
+            }
+            // Keep equal IDs in the same range
+            end = upperBound(sortedIds[end - 1]);
+            ranges.add(new int[] {sortedIds[start], sortedIds[end - 1]});
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * Catalog positions of the rows in a set, in a sort order. Walks the
+     * order's permutation once; only the first TITLE sort decodes titles.
+     */
+    public int[] positions(BitSet rows, DestinationSort sort) {
+        int[] result = new int[rows.cardinality()];
+        int count = 0;
+        switch (sort) {
+            case ADDED:
+                for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+                    result[count++] = i;
+                }
+                break;
+            case RECENTLY_ADDED:
+                for (int i = rows.previousSetBit(size - 1); i >= 0; i = rows.previousSetBit(i - 1)) {
+                    result[count++] = i;
+                }
+                break;
+            case ID_ASCENDING:
+                count = select(positionsById, false, rows, result);
+                break;
+            case ID_DESCENDING:
+                count = select(positionsById, true, rows, result);
+                break;
+            case TITLE:
+                count = select(byTitle(), false, rows, result);
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * Copy the positions of a permutation that are in a set
+     * @return Number of positions copied
+     */
+    private static int select(int[] order, boolean reverse, BitSet rows, int[] result) {
+        int count = 0;
+        for (int i = 0; i < order.length && count < result.length; i++) {
+            int position = order[reverse ? order.length - 1 - i : i];
+            if (rows.get(position)) {
+                result[count++] = position;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Positions ordered by title, equal titles in catalog order
+     */
+    private synchronized int[] byTitle() {
+        if (byTitle == null) {
+            String[] titles = new String[size];
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                String title = catalog.getTitle(i);
+                titles[i] = title != null ? title.toLowerCase(Locale.ROOT) : "";
+                order[i] = i;
+            }
+            // Stable, so equal titles stay in catalog order
+            Arrays.sort(order, (p1, p2) -> titles[p1].compareTo(titles[p2]));
+
+            byTitle = new int[size];
+            for (int i = 0; i < size; i++) {
+                byTitle[i] = order[i];
+            }
+        }
+        return byTitle;
+    }
+
+    /**
+     * Index of the first sorted ID >= id
+     */
+    private int lowerBound(int id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedIds[mid] < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Index of the first sorted ID > id
+     */
+    private int upperBound(int id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedIds[mid] <= id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Selects the rows of a filter from an index
+     */
+    public interface RowFilter {
+        BitSet select(DestinationFilterIndex index);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.travelplane.storage;
+
+import com.example.travelplane.models.Destination;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * ID range queries and sort orders over a small catalog with duplicate IDs
+ */
+public class DestinationFilterIndexTest {
+
+    // By catalog position; 3 appears three times
+    private static final int[] IDS = {5, 3, 9, 3, 1, 7, 3};
+    private static final int[] USER_IDS = {1, 2, 1, 2, 1, 1, 2};
+    private static final String[] TITLES = {"Oslo", "bergen", "Athens", "Cairo", "Dublin", "amman", "Cork"};
+
+    private File file;
+    private DestinationFilterIndex index;
+
+    @Before
+    public void setUp() throws IOException {
+        List<Destination> destinations = new ArrayList<>();
+        for (int i = 0; i < IDS.length; i++) {
+            destinations.add(new Destination(USER_IDS[i], IDS[i], TITLES[i], "body " + i));
+        }
+        file = File.createTempFile("catalog", ".bin");
+        DestinationCatalog.write(file, destinations);
+        index = DestinationCatalog.open(file).getFilterIndex();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void idRangeIncludesBothBoundsAndEveryDuplicate() {
+        assertEquals(bits(1, 3, 6), index.idRange(3, 3));
+        assertEquals(bits(0, 1, 3, 4, 6), index.idRange(1, 5));
+        assertEquals(bits(2), index.idRange(9, 9));
+    }
+
+    @Test
+    public void idRangeOutsideOrBetweenIdsIsEmpty() {
+        assertTrue(index.idRange(4, 4).isEmpty());
+        assertTrue(index.idRange(10, 100).isEmpty());
+        assertTrue(index.idRange(-5, 0).isEmpty());
+        assertTrue(index.idRange(5, 3).isEmpty()); // min > max
+    }
+
+    @Test
+    public void idRangeOverAllIntsSelectsEveryRow() {
+        assertEquals(index.all(), index.idRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(IDS.length, index.all().cardinality());
+    }
+
+    @Test
+    public void idsMatchesEveryRowWithAnId() {
+        assertEquals(bits(1, 2, 3, 6), index.ids(new int[] {9, 3, 4}));
+        assertTrue(index.ids(new int[0]).isEmpty());
+    }
+
+    @Test
+    public void idRangesKeepDuplicatesTogetherAndCoverEveryRow() {
+        for (int count = 1; count <= 8; count++) {
+            List<int[]> ranges = index.idRanges(count);
+            assertFalse(ranges.isEmpty());
+            assertTrue("at most " + count + " ranges", ranges.size() <= count);
+
+            BitSet covered = new BitSet();
+            long previousMax = Long.MIN_VALUE;
+            for (int[] range : ranges) {
+                assertTrue("ascending", range[0] > previousMax);
+                assertTrue(range[0] <= range[1]);
+                BitSet rows = index.idRange(range[0], range[1]);
+                assertFalse("ranges do not overlap", rows.intersects(covered));
+                covered.or(rows);
+                previousMax = range[1];
+            }
+            assertEquals(index.all(), covered);
+        }
+    }
+
+    @Test
+    public void idRangesSplitAtDistinctIds() {
+        // Sorted IDs 1 3 3 3 5 7 9: the first third ends inside the run of 3s
+        List<int[]> ranges = index.idRanges(3);
+        assertEquals(2, ranges.size());
+        assertArrayEquals(new int[] {1, 3}, ranges.get(0));
+        assertArrayEquals(new int[] {5, 9}, ranges.get(1));
+
+        // Never more ranges than distinct IDs
+        assertEquals(5, index.idRanges(20).size());
+    }
+
+    @Test
+    public void userIdFilters() {
+        assertEquals(bits(1, 3, 6), index.userId(2));
+        assertEquals(bits(0, 2, 4, 5), index.notUserId(2));
+        assertTrue(index.userId(99).isEmpty());
+    }
+
+    @Test
+    public void positionsInEachSortOrder() {
+        BitSet rows = index.all();
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 6}, index.positions(rows, DestinationSort.ADDED));
+        assertArrayEquals(new int[] {6, 5, 4, 3, 2, 1, 0}, index.positions(rows, DestinationSort.RECENTLY_ADDED));
+        assertArrayEquals(new int[] {4, 1, 3, 6, 0, 5, 2}, index.positions(rows, DestinationSort.ID_ASCENDING));
+        assertArrayEquals(new int[] {2, 5, 0, 6, 3, 1, 4}, index.positions(rows, DestinationSort.ID_DESCENDING));
+        // Case-insensitive by title
+        assertArrayEquals(new int[] {5, 2, 1, 3, 6, 4, 0}, index.positions(rows, DestinationSort.TITLE));
+    }
+
+    @Test
+    public void positionsOfASubset() {
+        BitSet rows = index.idRange(3, 7);
+        assertArrayEquals(new int[] {1, 3, 6, 0, 5}, index.positions(rows, DestinationSort.ID_ASCENDING));
+        assertEquals(0, index.positions(new BitSet(), DestinationSort.TITLE).length);
+    }
+
+    private static BitSet bits(int... positions) {
+        BitSet result = new BitSet();
+        for (int position : positions) {
+            result.set(position);
+        }
+        return result;
+    }
+}
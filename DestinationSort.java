@@ -0,0 +1,15 @@
+package com.example.travelplane.storage;
+
+/**
+ * Display orders of a destination catalog, kept by DestinationFilterIndex
+ * as permutations of catalog positions
+ */
+public enum DestinationSort {
+    /** Catalog order: oldest first, as destinations are appended when added */
+    ADDED,
+    RECENTLY_ADDED,
+    ID_ASCENDING,
+    ID_DESCENDING,
+    /** Title, ignoring case */
+    TITLE
+}
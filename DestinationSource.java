@@ -0,0 +1,23 @@
+package com.example.travelplane.storage;
+
+import com.example.travelplane.models.Destination;
+
+/**
+ * Read-only, position-indexed view of destinations.
+ * Lets DestinationAdapter bind rows one at a time instead of holding the
+ * whole catalog as a List.
+ */
+public interface DestinationSource {
+
+    int size();
+
+    /**
+     * Get the destination at a position; may decode it on demand
+     */
+    Destination get(int position);
+
+    /**
+     * Get the ID at a position without decoding the whole record, where possible
+     */
+    int getId(int position);
+}
@@ -2,84 +2,494 @@ package com.example.travelplane.utils;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.util.Log;
 
 import com.example.travelplane.data.EnglishDestinationsData;
 import com.example.travelplane.models.Destination;
+import com.example.travelplane.models.ModelJson;
+import com.example.travelplane.storage.BinaryFormat;
+import com.example.travelplane.storage.DestinationCatalog;
+import com.example.travelplane.storage.IdSequence;
+import com.example.travelplane.storage.JsonFiles;
+import com.example.travelplane.storage.WriteBehindScheduler;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Manages persistence of destinations (add/delete) using SharedPreferences.
- * On first load, seeds data from EnglishDestinationsData.
+ * Manages persistence of destinations (add/delete) in a memory-mapped
+ * catalog file (see DestinationCatalog).
+ * On first load, seeds data from EnglishDestinationsData, or migrates the
+ * list from the binary, JSON or SharedPreferences formats used by older
+ * versions.
+ * Read-only screens use openCatalog(), which decodes rows on demand. The
+ * full list is only loaded into memory for mutations; it is shared by all
+ * instances, and WriteBehindScheduler writes one snapshot per burst.
+ * Deletes made while the list is not loaded append the IDs to a small
+ * tombstone file instead, and openCatalog() hides them; the next full
+ * write of the catalog drops the records and the tombstones.
+ * Titles and bodies are kept in a TextIndex for search; every mutation
+ * updates it in place. New IDs come from a persistent IdSequence.
  */
 public class DestinationStorage {
+    private static final String TAG = "DestinationStorage";
     private static final String PREF_NAME = "TravelPlaneDestinations";
     private static final String KEY_DESTINATIONS = "destinations";
+    private static final String CATALOG_FILE = "destinations.catalog";
+    private static final String LEGACY_BINARY_FILE = "destinations.bin";
+    private static final String LEGACY_JSON_FILE = "destinations.json";
+    private static final String DELETED_FILE = "destinations.deleted";
+    private static final String ID_SEQUENCE_KEY = "destinations";
+    private static final int[] NO_IDS = new int[0];
+
+    // Shared by all instances so that mutations from different screens coalesce
+    private static final Object LOCK = new Object();
+    private static List<Destination> cachedDestinations;
+    private static boolean dirty;
+    private static long version; // bumped on every mutation
+    private static TextIndex searchIndex; // built on first search, then kept current
+    private static int[] deletedIds; // sorted tombstones, read on first use
+    private static IdSequence idSequence; // shared, so instances never hand out the same block
+
+    // Serializes catalog writes from the write-behind thread and openCatalog()
+    private static final Object FLUSH_LOCK = new Object();
 
     private final SharedPreferences prefs;
-    private final Gson gson;
+    private final File file;
+    private final File legacyBinaryFile;
+    private final File legacyJsonFile;
+    private final File deletedFile;
 
     public DestinationStorage(Context context) {
+        File filesDir = context.getApplicationContext().getFilesDir();
         prefs = context.getApplicationContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        gson = new Gson();
+        file = new File(filesDir, CATALOG_FILE);
+        legacyBinaryFile = new File(filesDir, LEGACY_BINARY_FILE);
+        legacyJsonFile = new File(filesDir, LEGACY_JSON_FILE);
+        deletedFile = new File(filesDir, DELETED_FILE);
+        synchronized (LOCK) {
+            if (idSequence == null) {
+                idSequence = new IdSequence(
+                        context.getApplicationContext().getSharedPreferences(IdSequence.PREF_NAME, Context.MODE_PRIVATE),
+                        ID_SEQUENCE_KEY, this::maxStoredId);
+            }
+        }
+        WriteBehindScheduler.getInstance().register(PREF_NAME, this::flush);
+    }
+
+    /**
+     * Map the catalog for on-demand reads, writing pending changes first.
+     * The returned catalog is a snapshot; reopen it after mutations.
+     * @throws IOException if the catalog cannot be written or mapped
+     */
+    public DestinationCatalog openCatalog() throws IOException {
+        synchronized (LOCK) {
+            if (cachedDestinations == null && !file.exists()) {
+                destinations(); // migrate or seed
+            }
+        }
+        if (!flush()) {
+            throw new IOException("Failed to write destinations catalog");
+        }
+        return mapCatalog();
+    }
+
+    /**
+     * Map the catalog file without the tombstoned IDs
+     */
+    private DestinationCatalog mapCatalog() throws IOException {
+        // Tombstones are cleared only after the catalog is rewritten, so read them first
+        int[] hidden;
+        synchronized (LOCK) {
+            hidden = deletedIds();
+        }
+        return DestinationCatalog.open(file).without(hidden);
     }
 
     /**
      * Load destinations, seeding with EnglishDestinationsData on first launch.
      */
     public List<Destination> loadDestinations() {
-        String json = prefs.getString(KEY_DESTINATIONS, "");
-        if (json == null || json.isEmpty()) {
-            List<Destination> seed = EnglishDestinationsData.getEnglishDestinations();
-            saveDestinations(seed);
-            return new ArrayList<>(seed);
-        }
-        try {
-            Type type = new TypeToken<List<Destination>>() {}.getType();
-            List<Destination> list = gson.fromJson(json, type);
-            return list != null ? list : new ArrayList<>();
-        } catch (Exception e) {
-            return new ArrayList<>();
+        synchronized (LOCK) {
+            return new ArrayList<>(destinations());
         }
     }
 
     /** Save full list. */
     public void saveDestinations(List<Destination> destinations) {
-        String json = gson.toJson(destinations);
-        prefs.edit().putString(KEY_DESTINATIONS, json).apply();
+        int maxId = 0;
+        synchronized (LOCK) {
+            cachedDestinations = new ArrayList<>(destinations);
+            if (searchIndex != null) {
+                searchIndex.clear();
+                indexAll(cachedDestinations);
+            }
+            for (Destination destination : cachedDestinations) {
+                maxId = Math.max(maxId, destination.getId());
+            }
+        }
+        markDirty();
+        // Outside LOCK: the sequence's seed takes LOCK while holding the sequence
+        idSequence.skipPast(maxId);
     }
 
     /** Add new destination and persist. */
     public void addDestination(Destination destination) {
-        List<Destination> list = loadDestinations();
-        list.add(destination);
-        saveDestinations(list);
+        synchronized (LOCK) {
+            destinations().add(destination);
+            if (searchIndex != null) {
+                searchIndex.put(destination.getId(), destination.getTitle(), destination.getBody());
+            }
+        }
+        markDirty();
+        idSequence.skipPast(destination.getId());
     }
 
     /** Delete by id and persist. */
     public void deleteDestination(int destinationId) {
-        List<Destination> list = loadDestinations();
-        for (int i = 0; i < list.size(); i++) {
-            if (list.get(i).getId() == destinationId) {
-                list.remove(i);
-                break;
+        deleteDestinations(destinationId);
+    }
+
+    /**
+     * Delete destinations by id as one batch. While the list is not loaded
+     * this appends the IDs to the tombstone file without reading or
+     * rewriting the catalog. Writes to disk, so call it off the main thread.
+     */
+    public void deleteDestinations(int... destinationIds) {
+        int[] ids = destinationIds.clone();
+        Arrays.sort(ids);
+        boolean rewrite;
+        synchronized (LOCK) {
+            rewrite = cachedDestinations != null || !file.exists() || !appendDeleted(ids);
+            if (rewrite) {
+                // One pass, keeping the order of the remaining destinations
+                List<Destination> list = destinations();
+                int kept = 0;
+                for (int i = 0; i < list.size(); i++) {
+                    Destination destination = list.get(i);
+                    if (Arrays.binarySearch(ids, destination.getId()) < 0) {
+                        list.set(kept++, destination);
+                    }
+                }
+                list.subList(kept, list.size()).clear();
             }
+            if (searchIndex != null) {
+                for (int id : ids) {
+                    searchIndex.remove(id);
+                }
+            }
+            if (!rewrite) {
+                version++; // only the tombstones changed
+            }
+        }
+        if (rewrite) {
+            markDirty();
         }
-        saveDestinations(list);
     }
 
-    /** Generate next ID based on current max id. */
+    /**
+     * Find destinations whose title or body contain every word of a query,
+     * each word matched as a prefix. Builds the index on first use.
+     * @return Matching destination IDs in ascending order
+     */
+    public int[] search(String query) {
+        TextIndex index;
+        synchronized (LOCK) {
+            index = searchIndex();
+        }
+        return index.search(query);
+    }
+
+    /**
+     * Build the search index ahead of the first search. Reads every
+     * destination, so call it off the main thread.
+     */
+    public void prepareSearch() {
+        synchronized (LOCK) {
+            searchIndex();
+        }
+    }
+
+    /**
+     * Allocate an ID for a new destination. Never returns an ID that was
+     * used before, even if that destination was deleted.
+     */
     public int nextId() {
-        List<Destination> list = loadDestinations();
-        int max = 0;
-        for (Destination d : list) {
-            if (d.getId() > max) max = d.getId();
+        return idSequence.next();
+    }
+
+    /**
+     * Allocate consecutive IDs for a batch of new destinations
+     * @return The first of count IDs
+     */
+    public int reserveIds(int count) {
+        return idSequence.reserve(count);
+    }
+
+    /**
+     * Highest ID in storage, including tombstoned records still in the
+     * catalog file. Reads only the offset table when nothing is loaded.
+     * Seeds the ID sequence, so it runs once per installation.
+     */
+    private int maxStoredId() {
+        synchronized (LOCK) {
+            int max = 0;
+            if (cachedDestinations == null && file.exists()) {
+                try {
+                    DestinationCatalog catalog = DestinationCatalog.open(file);
+                    for (int i = 0; i < catalog.size(); i++) {
+                        max = Math.max(max, catalog.getId(i));
+                    }
+                    return max;
+                } catch (IOException | RuntimeException e) {
+                    Log.e(TAG, "Failed to read catalog IDs, using the loaded list", e);
+                }
+            }
+            for (Destination destination : destinations()) {
+                max = Math.max(max, destination.getId());
+            }
+            return max;
         }
-        return max + 1;
     }
-}
 
+    /**
+     * In-memory list, read from disk on first use. Caller holds LOCK.
+     */
+    private List<Destination> destinations() {
+        if (cachedDestinations != null) {
+            return cachedDestinations;
+        }
+
+        if (file.exists()) {
+            try {
+                cachedDestinations = mapCatalog().toList();
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to read destinations", e);
+                cachedDestinations = new ArrayList<>();
+            }
+            if (deletedIds().length > 0) {
+                markDirty(); // drop the tombstoned records from the file
+            }
+            return cachedDestinations;
+        }
+
+        // Files below were written by older versions; converted on the next flush
+        String json = prefs.getString(KEY_DESTINATIONS, "");
+        if (legacyBinaryFile.exists()) {
+            try {
+                cachedDestinations = BinaryFormat.readDestinations(legacyBinaryFile);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to read legacy destinations", e);
+                cachedDestinations = new ArrayList<>();
+            }
+        } else if (legacyJsonFile.exists()) {
+            try {
+                cachedDestinations = JsonFiles.readList(legacyJsonFile, ModelJson.DESTINATION);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to read legacy destinations", e);
+                cachedDestinations = new ArrayList<>();
+            }
+        } else if (json == null || json.isEmpty()) {
+            cachedDestinations = new ArrayList<>(EnglishDestinationsData.getEnglishDestinations());
+        } else {
+            try {
+                Type type = new TypeToken<List<Destination>>() {}.getType();
+                List<Destination> list = new Gson().fromJson(json, type);
+                cachedDestinations = list != null ? list : new ArrayList<>();
+            } catch (Exception e) {
+                cachedDestinations = new ArrayList<>();
+            }
+        }
+        markDirty();
+        return cachedDestinations;
+    }
+
+    /**
+     * Search index, built on first use. Caller holds LOCK.
+     */
+    private TextIndex searchIndex() {
+        if (searchIndex != null) {
+            return searchIndex;
+        }
+
+        TextIndex index = new TextIndex();
+        if (cachedDestinations == null && file.exists()) {
+            // Nothing changed since the catalog was written; index it without keeping the list
+            try {
+                DestinationCatalog catalog = mapCatalog();
+                for (int i = 0; i < catalog.size(); i++) {
+                    Destination destination = catalog.get(i);
+                    index.put(destination.getId(), destination.getTitle(), destination.getBody());
+                }
+                searchIndex = index;
+                return index;
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to index catalog, indexing the loaded list", e);
+                index.clear();
+            }
+        }
+        searchIndex = index;
+        indexAll(destinations());
+        return index;
+    }
+
+    /**
+     * Tombstoned IDs, read from disk on first use. Caller holds LOCK.
+     */
+    private int[] deletedIds() {
+        if (deletedIds != null) {
+            return deletedIds;
+        }
+        deletedIds = NO_IDS;
+        if (!deletedFile.exists()) {
+            return deletedIds;
+        }
+
+        int[] ids = new int[16];
+        int count = 0;
+        try {
+            InputStream in = BinaryFormat.openForRead(deletedFile, BinaryFormat.KIND_DELETED_DESTINATIONS);
+            try {
+                while (true) {
+                    int id = BinaryFormat.readVarInt(in);
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = id;
+                }
+            } catch (EOFException e) {
+                // End of file, or an append cut short by a crash
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read deleted destinations", e);
+        }
+        deletedIds = union(NO_IDS, Arrays.copyOf(ids, count));
+        return deletedIds;
+    }
+
+    /**
+     * Append IDs to the tombstone file. Caller holds LOCK.
+     * @param ids IDs in ascending order
+     * @return false if the append failed
+     */
+    private boolean appendDeleted(int[] ids) {
+        int[] current = deletedIds();
+        try {
+            boolean created = !deletedFile.exists() || deletedFile.length() == 0;
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(deletedFile, true));
+            try {
+                if (created) {
+                    BinaryFormat.writeHeader(out, BinaryFormat.KIND_DELETED_DESTINATIONS);
+                }
+                for (int id : ids) {
+                    BinaryFormat.writeVarInt(out, id);
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to append deleted destinations", e);
+            return false;
+        }
+        deletedIds = union(current, ids);
+        return true;
+    }
+
+    /**
+     * Sorted union without duplicates; the second array need not be sorted
+     */
+    private static int[] union(int[] sorted, int[] ids) {
+        int[] all = Arrays.copyOf(sorted, sorted.length + ids.length);
+        System.arraycopy(ids, 0, all, sorted.length, ids.length);
+        Arrays.sort(all);
+        int count = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (i == 0 || all[i] != all[count - 1]) {
+                all[count++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, count);
+    }
+
+    /**
+     * Caller holds LOCK
+     */
+    private static void indexAll(List<Destination> destinations) {
+        for (Destination destination : destinations) {
+            searchIndex.put(destination.getId(), destination.getTitle(), destination.getBody());
+        }
+    }
+
+    /**
+     * Counter that changes whenever the destinations change, so holders of
+     * a catalog can tell whether it is still current
+     */
+    public long getVersion() {
+        synchronized (LOCK) {
+            return version;
+        }
+    }
+
+    private void markDirty() {
+        synchronized (LOCK) {
+            dirty = true;
+            version++;
+        }
+        WriteBehindScheduler.getInstance().markDirty(PREF_NAME);
+    }
+
+    /**
+     * Write the current list if it changed; runs on the write-behind thread
+     * or from openCatalog().
+     * @return false if the write failed
+     */
+    private boolean flush() {
+        synchronized (FLUSH_LOCK) {
+            List<Destination> snapshot;
+            synchronized (LOCK) {
+                if (!dirty || cachedDestinations == null) {
+                    return true;
+                }
+                snapshot = new ArrayList<>(cachedDestinations);
+                dirty = false;
+            }
+
+            try {
+                DestinationCatalog.write(file, snapshot);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write destinations", e);
+                synchronized (LOCK) {
+                    dirty = true;
+                }
+                return false;
+            }
+
+            synchronized (LOCK) {
+                // The snapshot was taken without the tombstoned records
+                if (deletedFile.exists()) {
+                    deletedFile.delete();
+                }
+                deletedIds = NO_IDS;
+            }
+            legacyBinaryFile.delete();
+            legacyJsonFile.delete();
+            if (prefs.contains(KEY_DESTINATIONS)) {
+                prefs.edit().remove(KEY_DESTINATIONS).apply();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.travelplane.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Hand-written streaming Gson adapter for Destination.
+ * Uses the same field names as the JSONPlaceholder API response.
+ */
+public class DestinationTypeAdapter extends TypeAdapter<Destination> {
+
+    @Override
+    public void write(JsonWriter out, Destination destination) throws IOException {
+        if (destination == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("userId").value(destination.getUserId());
+        out.name("id").value(destination.getId());
+        if (destination.getTitle() != null) {
+            out.name("title").value(destination.getTitle());
+        }
+        if (destination.getBody() != null) {
+            out.name("body").value(destination.getBody());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Destination read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Destination destination = new Destination();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "userId":
+                    destination.setUserId(in.nextInt());
+                    break;
+                case "id":
+                    destination.setId(in.nextInt());
+                    break;
+                case "title":
+                    destination.setTitle(ModelJson.nextNullableString(in));
+                    break;
+                case "body":
+                    destination.setBody(ModelJson.nextNullableString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return destination;
+    }
+}
@@ -2,9 +2,12 @@ package com.example.travelplane;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.ProgressBar;
@@ -12,8 +15,12 @@ import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.view.ActionMode;
+import androidx.appcompat.widget.SearchView;
 import androidx.appcompat.widget.Toolbar;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -21,30 +28,67 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.travelplane.adapters.DestinationAdapter;
 import com.example.travelplane.data.EnglishDestinationsData;
 import com.example.travelplane.models.Destination;
+import com.example.travelplane.storage.DestinationCatalog;
+import com.example.travelplane.storage.DestinationFilterIndex;
+import com.example.travelplane.storage.DestinationSort;
+import com.example.travelplane.storage.DestinationSource;
+import com.example.travelplane.storage.FilteredDestinationSource;
+import com.example.travelplane.storage.PagedDestinationSource;
+import com.example.travelplane.storage.WriteBehindScheduler;
 import com.example.travelplane.utils.DestinationStorage;
+import com.example.travelplane.viewmodels.DestinationsViewModel;
+import com.example.travelplane.viewmodels.LoadState;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Destinations Activity
- * Displays travel destinations fetched from API with grid/list toggle and filtering
+ * Displays travel destinations fetched from API with grid/list toggle, filtering and search.
+ * Long-press destinations to select several and delete them together.
  */
-public class DestinationsActivity extends AppCompatActivity implements DestinationAdapter.OnDestinationDeleteListener, DestinationAdapter.OnDestinationClickListener {
+public class DestinationsActivity extends AppCompatActivity implements DestinationAdapter.OnDestinationDeleteListener,
+        DestinationAdapter.OnDestinationClickListener, DestinationAdapter.OnSelectionChangedListener {
+
+    private static final String TAG = "DestinationsActivity";
+
+    // Time from onCreate to the first frame with destinations on screen
+    private static final long FIRST_FRAME_TARGET_MS = 100;
+
+    // Paging over the catalog: rows per page, rows to load ahead, decoded pages kept
+    private static final int PAGE_SIZE = 20;
+    private static final int PREFETCH_DISTANCE = 10;
+    private static final int MAX_CACHED_PAGES = 5;
+
+    // ID range filters offered, split so each holds about the same number of destinations
+    private static final int ID_RANGE_FILTERS = 4;
 
     private RecyclerView recyclerView;
     private ProgressBar progressBar;
     private TextView tvError;
     private Spinner spinnerFilter;
+    private ArrayAdapter<FilterOption> spinnerAdapter;
 
     private DestinationAdapter adapter;
-    private List<Destination> allDestinations;
+    private DestinationCatalog catalog; // memory-mapped, rows decoded on bind
+    private PagedDestinationSource pagedSource; // null while a filtered/sorted list is shown
+    private String searchQuery = "";
+    private String appliedFilter; // label of the filter last shown, to ignore repeated selection events
+    private boolean awaitingSelection; // filtered rows requested from the ViewModel
+    private boolean announceShown; // toast the row count once the filter is shown
+    private DestinationSort sortOrder = DestinationSort.ADDED;
     private boolean isGridView = false;
     private DestinationStorage destinationStorage;
+    private DestinationsViewModel viewModel;
+    private long createdAtMillis;
+    private boolean firstFrameReported;
+    private ActionMode selectionMode;
+    private boolean rowsRemoved; // removed from the adapter ahead of the remapped catalog
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdAtMillis = SystemClock.elapsedRealtime();
         setContentView(R.layout.activity_destinations);
 
         destinationStorage = new DestinationStorage(this); // initialize storage early
@@ -63,8 +107,12 @@ public class DestinationsActivity extends AppCompatActivity implements Destinati
         // Setup RecyclerView
         setupRecyclerView();
 
-        // Load destinations from storage
-        loadDestinations();
+        // Served from the warm app-wide cache when possible, otherwise loaded in the background;
+        // after a configuration change the last result is reused
+        viewModel = new ViewModelProvider(this).get(DestinationsViewModel.class);
+        viewModel.getState().observe(this, this::showDestinations);
+        viewModel.getSelection().observe(this, this::showSelection);
+        viewModel.load();
     }
 
     /**
@@ -85,17 +133,14 @@ public class DestinationsActivity extends AppCompatActivity implements Destinati
     }
 
     /**
-     * Setup filter spinner with categories
+     * Setup filter spinner; the options are filled in once a catalog is loaded
      */
     private void setupFilterSpinner() {
-        // Create filter options
-        String[] filterOptions = {"All Destinations", "ID 1-25", "ID 26-50", "ID 51-75", "ID 76-100"};
-
         // Create adapter for spinner
-        ArrayAdapter<String> spinnerAdapter = new ArrayAdapter<>(
+        spinnerAdapter = new ArrayAdapter<>(
             this,
             android.R.layout.simple_spinner_item,
-            filterOptions
+            new ArrayList<>()
         );
         spinnerAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         spinnerFilter.setAdapter(spinnerAdapter);
@@ -104,7 +149,12 @@ public class DestinationsActivity extends AppCompatActivity implements Destinati
         spinnerFilter.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                filterDestinations(position);
+                // Also called after the options are rebuilt; only a new choice filters again
+                String label = spinnerAdapter.getItem(position).label;
+                if (!label.equals(appliedFilter)) {
+                    appliedFilter = label;
+                    filterDestinations();
+                }
             }
 
             @Override
@@ -114,44 +164,139 @@ public class DestinationsActivity extends AppCompatActivity implements Destinati
         });
     }
 
+    /**
+     * Rebuild the filter options from the loaded catalog when they changed,
+     * keeping the selected option. The ID ranges follow the data, so a
+     * selected range that is no longer offered is kept as an extra option.
+     */
+    private void updateFilterOptions() {
+        FilterOption selected = selectedFilter();
+        DestinationFilterIndex index = catalog.getFilterIndex(); // built with the catalog in the background
+
+        List<FilterOption> options = new ArrayList<>();
+        options.add(new FilterOption("All Destinations", null));
+        options.add(new FilterOption("My Destinations",
+                i -> i.userId(Destination.USER_CREATED_USER_ID)));
+        options.add(new FilterOption("Sample Destinations",
+                i -> i.notUserId(Destination.USER_CREATED_USER_ID)));
+        for (int[] range : index.idRanges(ID_RANGE_FILTERS)) {
+            int min = range[0];
+            int max = range[1];
+            options.add(new FilterOption("ID " + min + "-" + max, i -> i.idRange(min, max)));
+        }
+
+        int selection = 0;
+        for (int i = 0; selected != null && i < options.size(); i++) {
+            if (options.get(i).label.equals(selected.label)) {
+                selection = i;
+            }
+        }
+        if (selection == 0 && selected != null && selected.rows != null) {
+            options.add(selected);
+            selection = options.size() - 1;
+        }
+
+        if (hasOptions(options)) {
+            return;
+        }
+        appliedFilter = options.get(selection).label;
+        spinnerAdapter.clear();
+        spinnerAdapter.addAll(options);
+        spinnerFilter.setSelection(selection);
+    }
+
+    /**
+     * Whether the spinner already offers these options
+     */
+    private boolean hasOptions(List<FilterOption> options) {
+        if (spinnerAdapter.getCount() != options.size()) {
+            return false;
+        }
+        for (int i = 0; i < options.size(); i++) {
+            if (!spinnerAdapter.getItem(i).label.equals(options.get(i).label)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private FilterOption selectedFilter() {
+        int position = spinnerFilter.getSelectedItemPosition();
+        return position >= 0 && position < spinnerAdapter.getCount() ? spinnerAdapter.getItem(position) : null;
+    }
+
+    private boolean isFilteredOrSorted() {
+        FilterOption selected = selectedFilter();
+        return !searchQuery.isEmpty() || (selected != null && selected.rows != null)
+                || sortOrder != DestinationSort.ADDED;
+    }
+
     /**
      * Filter destinations based on spinner selection
      */
-    private void filterDestinations(int filterPosition) {
-        if (allDestinations == null || allDestinations.isEmpty()) {
+    private void filterDestinations() {
+        if (catalog == null || catalog.size() == 0) {
             return;
         }
+        announceShown = true;
+        applyFilters();
+    }
 
-        List<Destination> filtered = new ArrayList<>();
+    /**
+     * Show the destinations passing the selected filter and the search query,
+     * in the selected sort order. The whole catalog is shown at once; other
+     * rows are worked out from the catalog's filter index in the background
+     * and shown by showSelection(), so nothing is decoded until the rows are bound.
+     */
+    private void applyFilters() {
+        if (isFilteredOrSorted()) {
+            FilterOption selected = selectedFilter();
+            awaitingSelection = true;
+            viewModel.select(catalog, selected != null ? selected.rows : null, searchQuery, sortOrder);
+            return;
+        }
 
-        switch (filterPosition) {
-            case 0: // All
-                filtered.addAll(allDestinations);
-                break;
-            case 1: // ID 1-25
-                for (Destination d : allDestinations) {
-                    if (d.getId() >= 1 && d.getId() <= 25) filtered.add(d);
-                }
-                break;
-            case 2: // ID 26-50
-                for (Destination d : allDestinations) {
-                    if (d.getId() >= 26 && d.getId() <= 50) filtered.add(d);
-                }
-                break;
-            case 3: // ID 51-75
-                for (Destination d : allDestinations) {
-                    if (d.getId() >= 51 && d.getId() <= 75) filtered.add(d);
-                }
-                break;
-            case 4: // ID 76-100
-                for (Destination d : allDestinations) {
-                    if (d.getId() >= 76 && d.getId() <= 100) filtered.add(d);
-                }
-                break;
+        awaitingSelection = false;
+        viewModel.cancelSelection();
+        tvError.setVisibility(View.GONE);
+        recyclerView.setVisibility(View.VISIBLE);
+        showCatalog();
+        announceShown(catalog.size());
+    }
+
+    /**
+     * Show the rows worked out for the current filter, search and sort order
+     */
+    private void showSelection(DestinationsViewModel.Selection selection) {
+        // Ignore a result from before a reload or a configuration change
+        if (!awaitingSelection || selection.getCatalog() != catalog) {
+            return;
         }
+        awaitingSelection = false;
+
+        int[] positions = selection.getPositions();
+        announceShown(positions.length);
+        if (positions.length == 0) {
+            showError(searchQuery.isEmpty()
+                    ? "No destinations in this filter"
+                    : "No destinations match \"" + searchQuery + "\"");
+            return;
+        }
+        tvError.setVisibility(View.GONE);
+        recyclerView.setVisibility(View.VISIBLE);
+        pagedSource = new PagedDestinationSource(new FilteredDestinationSource(catalog, positions),
+                PAGE_SIZE, PREFETCH_DISTANCE, MAX_CACHED_PAGES);
+        showSource(pagedSource);
+    }
 
-        adapter.setDestinations(filtered);
-        Toast.makeText(this, "Showing " + filtered.size() + " destinations", Toast.LENGTH_SHORT).show();
+    /**
+     * Toast the number of destinations shown after the user changed the filter
+     */
+    private void announceShown(int shown) {
+        if (announceShown) {
+            announceShown = false;
+            Toast.makeText(this, "Showing " + shown + " destinations", Toast.LENGTH_SHORT).show();
+        }
     }
 
     /**
@@ -159,39 +304,132 @@ public class DestinationsActivity extends AppCompatActivity implements Destinati
      */
     private void setupRecyclerView() {
         adapter = new DestinationAdapter(this, this);
+        adapter.setSelectionListener(this);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.setAdapter(adapter);
+
+        // Load pages ahead of the scroll direction
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (pagedSource == null || !(rv.getLayoutManager() instanceof LinearLayoutManager)) {
+                    return;
+                }
+                LinearLayoutManager layoutManager = (LinearLayoutManager) rv.getLayoutManager();
+                int position = dy >= 0
+                        ? layoutManager.findLastVisibleItemPosition()
+                        : layoutManager.findFirstVisibleItemPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    pagedSource.loadAround(position);
+                }
+            }
+        });
     }
 
     /**
-     * Load destinations with English content
+     * Show the whole catalog, decoded a page at a time
+     */
+    private void showCatalog() {
+        pagedSource = new PagedDestinationSource(catalog, PAGE_SIZE, PREFETCH_DISTANCE, MAX_CACHED_PAGES);
+        showSource(pagedSource);
+    }
+
+    /**
+     * Hand a source to the adapter. After rows were removed locally the
+     * remapped catalog shows the same rows, so the adapter can take it
+     * without diffing.
+     */
+    private void showSource(DestinationSource source) {
+        if (rowsRemoved) {
+            rowsRemoved = false;
+            adapter.replaceSource(source);
+        } else {
+            adapter.setSource(source);
+        }
+    }
+
+    /**
+     * Reload destinations with English content in the background
      */
     private void loadDestinations() {
-        // Show loading
-        progressBar.setVisibility(View.VISIBLE);
-        tvError.setVisibility(View.GONE);
-        recyclerView.setVisibility(View.GONE);
+        viewModel.reload();
+    }
 
-        // Simulate loading delay (like API call)
-        new android.os.Handler().postDelayed(() -> {
-            if (destinationStorage == null) {
-                destinationStorage = new DestinationStorage(this);
+    /**
+     * Show the loaded catalog; pages are decoded as rows are bound
+     */
+    private void showDestinations(LoadState<DestinationCatalog> state) {
+        if (state.isLoading()) {
+            // Keep showing the previous catalog while reloading
+            if (state.getData() == null) {
+                progressBar.setVisibility(View.VISIBLE);
+                tvError.setVisibility(View.GONE);
+                recyclerView.setVisibility(View.GONE);
             }
-            // Load English destinations
-            allDestinations = destinationStorage.loadDestinations();
-
-            progressBar.setVisibility(View.GONE);
-
-            if (allDestinations.isEmpty()) {
-                showError("No destinations found");
-            } else {
-                recyclerView.setVisibility(View.VISIBLE);
-                adapter.setDestinations(allDestinations);
-                Toast.makeText(DestinationsActivity.this,
-                        "Loaded " + allDestinations.size() + " English destinations",
-                        Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        progressBar.setVisibility(View.GONE);
+        if (state.getError() != null) {
+            showError("Failed to load destinations");
+            return;
+        }
+
+        catalog = state.getData();
+        updateFilterOptions();
+        if (catalog.size() == 0) {
+            showError("No destinations found");
+        } else if (isFilteredOrSorted()) {
+            applyFilters();
+        } else {
+            awaitingSelection = false;
+            viewModel.cancelSelection();
+            tvError.setVisibility(View.GONE);
+            recyclerView.setVisibility(View.VISIBLE);
+            showCatalog();
+            reportFirstFrame();
+            Toast.makeText(DestinationsActivity.this,
+                    "Loaded " + catalog.size() + " English destinations",
+                    Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Log the time to the first frame that shows destinations, once per activity
+     */
+    private void reportFirstFrame() {
+        if (firstFrameReported) {
+            return;
+        }
+        firstFrameReported = true;
+
+        recyclerView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                recyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+                long elapsed = SystemClock.elapsedRealtime() - createdAtMillis;
+                if (elapsed > FIRST_FRAME_TARGET_MS) {
+                    Log.w(TAG, "Time to first frame " + elapsed + " ms, target " + FIRST_FRAME_TARGET_MS + " ms");
+                } else {
+                    Log.i(TAG, "Time to first frame " + elapsed + " ms");
+                }
+                // Also reported by the system as "Fully drawn" relative to process start
+                reportFullyDrawn();
+                return true;
             }
-        }, 500); // 500ms delay to simulate network call
+        });
+    }
+
+    /**
+     * Show the destinations matching a search query as the user types,
+     * within the selected filter
+     */
+    private void searchDestinations(String query) {
+        searchQuery = query.trim();
+        if (catalog == null || catalog.size() == 0) {
+            return;
+        }
+        applyFilters();
     }
 
     /**
@@ -204,6 +442,13 @@ public class DestinationsActivity extends AppCompatActivity implements Destinati
         recyclerView.setVisibility(View.GONE);
     }
 
+    @Override
+    protected void onPause() {
+        // Don't keep pending destination writes while in the background
+        WriteBehindScheduler.getInstance().flushNow();
+        super.onPause();
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         onBackPressed();
@@ -213,9 +458,36 @@ public class DestinationsActivity extends AppCompatActivity implements Destinati
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_destinations, menu);
+        addSearchItem(menu);
         return true;
     }
 
+    /**
+     * Add a search field to the toolbar that searches on every keystroke
+     */
+    private void addSearchItem(Menu menu) {
+        SearchView searchView = new SearchView(this);
+        searchView.setQueryHint("Search destinations");
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                searchDestinations(newText);
+                return true;
+            }
+        });
+
+        MenuItem searchItem = menu.add(Menu.NONE, Menu.NONE, 0, "Search");
+        searchItem.setIcon(android.R.drawable.ic_menu_search);
+        searchItem.setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM | MenuItem.SHOW_AS_ACTION_COLLAPSE_ACTION_VIEW);
+        searchItem.setActionView(searchView);
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == R.id.action_toggle_view) {
@@ -248,48 +520,60 @@ public class DestinationsActivity extends AppCompatActivity implements Destinati
             adapter.setGridView(false);
             Toast.makeText(this, "List View", Toast.LENGTH_SHORT).show();
         }
-
-        adapter.notifyDataSetChanged();
+        // The new layout manager lays out every row again; no need to invalidate the data
     }
 
     /**
-     * Sort destinations by ID
+     * Choose the display order. Only the view is reordered; the stored
+     * catalog is left as it is.
      */
     private void sortDestinations() {
-        if (allDestinations == null || allDestinations.isEmpty()) {
+        if (catalog == null || catalog.size() == 0) {
             return;
         }
 
-        // Sort in reverse order (pre-Java 8 compatible)
-        List<Destination> sorted = new ArrayList<>(allDestinations);
-        java.util.Collections.sort(sorted, new java.util.Comparator<Destination>() {
-            @Override
-            public int compare(Destination d1, Destination d2) {
-                return Integer.compare(d2.getId(), d1.getId());
-            }
-        });
+        DestinationSort[] sorts = DestinationSort.values();
+        String[] labels = new String[sorts.length];
+        for (int i = 0; i < sorts.length; i++) {
+            labels[i] = sortLabel(sorts[i]);
+        }
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Sort Destinations")
+                .setSingleChoiceItems(labels, sortOrder.ordinal(), (dialog, which) -> {
+                    dialog.dismiss();
+                    sortOrder = sorts[which];
+                    applyFilters();
+                    Toast.makeText(this, "Sorted by " + labels[which], Toast.LENGTH_SHORT).show();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
 
-        adapter.setDestinations(sorted);
-        destinationStorage.saveDestinations(sorted);
-        Toast.makeText(this, "Sorted by ID (descending)", Toast.LENGTH_SHORT).show();
+    private static String sortLabel(DestinationSort sort) {
+        switch (sort) {
+            case RECENTLY_ADDED:
+                return "Recently added";
+            case ID_ASCENDING:
+                return "ID (ascending)";
+            case ID_DESCENDING:
+                return "ID (descending)";
+            case TITLE:
+                return "Title";
+            default:
+                return "Date added";
+        }
     }
 
     @Override
-    public void onDeleteDestination(int position) {
-        if (allDestinations == null || position < 0 || position >= allDestinations.size()) {
-            return;
-        }
+    public void onDeleteDestination(Destination removed) {
+        if (removed == null) return;
 
         // Show confirmation dialog
         new androidx.appcompat.app.AlertDialog.Builder(this)
                 .setTitle("Delete Destination")
-                .setMessage("Are you sure you want to delete \"" + allDestinations.get(position).getTitle() + "\"?")
+                .setMessage("Are you sure you want to delete \"" + removed.getTitle() + "\"?")
                 .setPositiveButton("Delete", (dialog, which) -> {
-                    // Remove from list
-                    Destination removed = allDestinations.remove(position);
-                    // Update adapter and persist
-                    adapter.setDestinations(allDestinations);
-                    destinationStorage.saveDestinations(allDestinations);
+                    deleteDestinations(removed.getId());
 
                     Toast.makeText(this,
                             "Deleted: " + removed.getTitle(),
@@ -299,6 +583,76 @@ public class DestinationsActivity extends AppCompatActivity implements Destinati
                 .show();
     }
 
+    /**
+     * Remove the rows now, then delete from storage as one batch and remap
+     * the catalog in the background
+     */
+    private void deleteDestinations(int... destinationIds) {
+        if (adapter.removeDestinations(destinationIds) > 0) {
+            rowsRemoved = true;
+        }
+        viewModel.deleteDestinations(destinationIds);
+    }
+
+    @Override
+    public void onSelectionChanged(int selectedCount) {
+        if (selectedCount == 0) {
+            if (selectionMode != null) {
+                selectionMode.finish();
+            }
+            return;
+        }
+        if (selectionMode == null) {
+            selectionMode = startSupportActionMode(selectionCallback);
+        }
+        if (selectionMode != null) {
+            selectionMode.setTitle(selectedCount + " selected");
+        }
+    }
+
+    /**
+     * Contextual toolbar shown while destinations are selected
+     */
+    private final ActionMode.Callback selectionCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            MenuItem deleteItem = menu.add(Menu.NONE, Menu.NONE, 0, "Delete");
+            deleteItem.setIcon(android.R.drawable.ic_menu_delete);
+            deleteItem.setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            int[] selected = adapter.getSelectedIds();
+            new androidx.appcompat.app.AlertDialog.Builder(DestinationsActivity.this)
+                    .setTitle("Delete Destinations")
+                    .setMessage("Are you sure you want to delete " + selected.length + " destinations?")
+                    .setPositiveButton("Delete", (dialog, which) -> {
+                        deleteDestinations(selected);
+                        mode.finish();
+
+                        Toast.makeText(DestinationsActivity.this,
+                                "Deleted " + selected.length + " destinations",
+                                Toast.LENGTH_SHORT).show();
+                    })
+                    .setNegativeButton("Cancel", null)
+                    .show();
+            return true;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            selectionMode = null;
+            adapter.clearSelection();
+        }
+    };
+
     @Override
     public void onDestinationClick(Destination destination) {
         if (destination == null) return;
@@ -307,4 +661,22 @@ public class DestinationsActivity extends AppCompatActivity implements Destinati
         intent.putExtra(DestinationDetailActivity.EXTRA_DESC, destination.getBody());
         startActivity(intent);
     }
+
+    /**
+     * Spinner entry; rows is null for the unfiltered catalog
+     */
+    private static final class FilterOption {
+        final String label;
+        final DestinationFilterIndex.RowFilter rows;
+
+        FilterOption(String label, DestinationFilterIndex.RowFilter rows) {
+            this.label = label;
+            this.rows = rows;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
 }
@@ -0,0 +1,139 @@
+package com.example.travelplane.viewmodels;
+
+import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.travelplane.storage.DestinationCatalog;
+import com.example.travelplane.storage.DestinationFilterIndex;
+import com.example.travelplane.storage.DestinationSort;
+import com.example.travelplane.utils.DestinationCache;
+import com.example.travelplane.utils.DestinationStorage;
+
+import java.util.BitSet;
+
+/**
+ * Provides the destination catalog for DestinationsActivity.
+ * Serves the warm DestinationCache catalog immediately when there is one,
+ * and maps the catalog off the main thread otherwise.
+ * Filtered, searched and sorted rows are also worked out in the background.
+ */
+public class DestinationsViewModel extends BackgroundLoadViewModel<DestinationCatalog> {
+
+    private static final String TAG = "DestinationsViewModel";
+
+    private final DestinationStorage destinationStorage;
+    private final DestinationCache cache;
+    private final MutableLiveData<Selection> selection = new MutableLiveData<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int selectGeneration;
+
+    public DestinationsViewModel(@NonNull Application application) {
+        super(application);
+        destinationStorage = new DestinationStorage(application);
+        cache = DestinationCache.getInstance(application);
+    }
+
+    @Override
+    public void load() {
+        if (getState().getValue() != null) {
+            return;
+        }
+        DestinationCatalog warm = cache.peek();
+        if (warm == null) {
+            reload();
+            return;
+        }
+        setLoaded(warm);
+        if (cache.isStale()) {
+            reload(); // show the warm catalog now, the remapped one when ready
+        }
+    }
+
+    public LiveData<Selection> getSelection() {
+        return selection;
+    }
+
+    /**
+     * Work out the rows passing a filter and a search query, in a sort order,
+     * in the background: the search and a first title sort take longer than
+     * a frame. Supersedes any selection in progress. Must be called on the
+     * main thread.
+     * @param filter Rows to keep, or null for all rows
+     * @param query Trimmed search query, or empty for no search
+     */
+    public void select(final DestinationCatalog catalog, final DestinationFilterIndex.RowFilter filter,
+                       final String query, final DestinationSort sort) {
+        final int current = ++selectGeneration;
+        execute(() -> {
+            final Selection result;
+            try {
+                DestinationFilterIndex index = catalog.getFilterIndex();
+                BitSet rows = filter != null ? filter.select(index) : index.all();
+                if (!query.isEmpty()) {
+                    rows.and(index.ids(destinationStorage.search(query)));
+                }
+                result = new Selection(catalog, index.positions(rows, sort));
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to filter destinations", e);
+                return;
+            }
+            mainHandler.post(() -> {
+                if (current == selectGeneration) {
+                    selection.setValue(result);
+                }
+            });
+        });
+    }
+
+    /**
+     * Drop any selection in progress, e.g. when the whole catalog is shown again
+     */
+    public void cancelSelection() {
+        selectGeneration++;
+    }
+
+    /**
+     * Delete destinations as one batch in the background, then remap the catalog
+     */
+    public void deleteDestinations(final int... destinationIds) {
+        reloadAfter(() -> destinationStorage.deleteDestinations(destinationIds));
+    }
+
+    @Override
+    protected DestinationCatalog loadInBackground() throws Exception {
+        return cache.get(); // with its filter index built
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        selectGeneration++;
+    }
+
+    /**
+     * Catalog positions to show, in display order
+     */
+    public static final class Selection {
+        private final DestinationCatalog catalog;
+        private final int[] positions;
+
+        Selection(DestinationCatalog catalog, int[] positions) {
+            this.catalog = catalog;
+            this.positions = positions;
+        }
+
+        public DestinationCatalog getCatalog() {
+            return catalog;
+        }
+
+        public int[] getPositions() {
+            return positions;
+        }
+    }
+}
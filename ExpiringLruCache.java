@@ -0,0 +1,146 @@
+package com.example.travelplane.utils;
+
+import android.os.SystemClock;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache whose entries can also expire after a fixed time.
+ * When full, the least recently used entry is evicted; an entry older than
+ * the TTL is dropped on the next lookup and counts as a miss. Hit, miss and
+ * eviction counters are kept for diagnostics.
+ * Thread-safe. Values are returned as stored, so callers that hand them out
+ * should cache immutable values or copy them.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param maxSize Maximum number of entries
+     * @param ttlMillis Time an entry stays valid after it is put; 0 or less never expires
+     */
+    public ExpiringLruCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        // Access order: iteration starts at the least recently used entry
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Get a value and mark it as recently used
+     * @return The value, or null if absent or expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (isExpired(entry, SystemClock.elapsedRealtime())) {
+            map.remove(key);
+            evictionCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+
+    /**
+     * Store a value, evicting the least recently used entries if the cache is full
+     * @return The previous value, or null if there was none
+     */
+    public synchronized V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+        Entry<V> previous = map.put(key, new Entry<>(value, SystemClock.elapsedRealtime()));
+        trimToSize();
+        return previous != null ? previous.value : null;
+    }
+
+    /**
+     * Drop a single entry, e.g. after the value it caches was written
+     * @return The removed value, or null if there was none
+     */
+    public synchronized V remove(K key) {
+        Entry<V> previous = map.remove(key);
+        return previous != null ? previous.value : null;
+    }
+
+    /**
+     * Drop all entries. Counters are kept.
+     */
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    /**
+     * Number of entries, including expired ones not looked up since
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Number of entries dropped because the cache was full or they expired
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext() && map.size() > maxSize) {
+            iterator.next();
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlMillis > 0 && now - entry.createdAt >= ttlMillis;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hitCount + missCount;
+        int hitPercent = lookups != 0 ? (int) (100 * hitCount / lookups) : 0;
+        return String.format(Locale.ROOT, "ExpiringLruCache[size=%d/%d,hits=%d,misses=%d,evictions=%d,hitRate=%d%%]",
+                map.size(), maxSize, hitCount, missCount, evictionCount, hitPercent);
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long createdAt;
+
+        Entry(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
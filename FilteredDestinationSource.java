@@ -0,0 +1,45 @@
+package com.example.travelplane.storage;
+
+import com.example.travelplane.models.Destination;
+
+/**
+ * DestinationSource showing selected positions of another source, in the
+ * given order, e.g. search results over a DestinationCatalog. Rows are
+ * still decoded on demand by the underlying source.
+ */
+public class FilteredDestinationSource implements DestinationSource {
+
+    private final DestinationSource source;
+    private final int[] positions;
+
+    /**
+     * @param source Source to select from
+     * @param positions Positions in the source to show. Not copied.
+     */
+    public FilteredDestinationSource(DestinationSource source, int[] positions) {
+        this.source = source;
+        this.positions = positions;
+    }
+
+    @Override
+    public int size() {
+        return positions.length;
+    }
+
+    @Override
+    public Destination get(int position) {
+        return source.get(positions[position]);
+    }
+
+    @Override
+    public int getId(int position) {
+        return source.getId(positions[position]);
+    }
+
+    /**
+     * The source the positions select from
+     */
+    public DestinationSource getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.travelplane.storage;
+
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Persistent, monotonic ID sequence.
+ * IDs are handed out from blocks reserved in SharedPreferences, so
+ * allocating is a counter increment and the preferences are only written
+ * once per block. The next block is reserved on a background thread while
+ * half of the current one is still left, so allocating rarely waits for
+ * the disk. IDs of a block left unused when the process dies are
+ * skipped, and IDs are never reused after deletes, not even the highest.
+ * The first allocation seeds the sequence from the existing data; after
+ * that the data is never read to allocate. Thread-safe.
+ */
+public class IdSequence {
+
+    private static final String TAG = "IdSequence";
+
+    /** Preferences file for sequences that have no preferences of their own */
+    public static final String PREF_NAME = "TravelPlaneIdSequences";
+
+    private static final int BLOCK_SIZE = 64;
+
+    // Writes reservations ahead of use, one at a time
+    private static final ExecutorService PREFETCH = Executors.newSingleThreadExecutor();
+
+    /**
+     * Finds the highest ID in use; called at most once, for a sequence
+     * that was never persisted
+     */
+    public interface Seed {
+        int maxExistingId();
+    }
+
+    private final SharedPreferences prefs;
+    private final String key;
+    private final Seed seed;
+    private int next; // next ID to hand out
+    private int limit; // first ID past the reserved block
+    private boolean loaded;
+    private boolean prefetching; // next block being reserved in the background
+    private final Object writeLock = new Object(); // orders writes, so the stored limit never goes back
+    private int written; // highest limit written; guarded by writeLock
+
+    /**
+     * @param prefs Preferences to persist the sequence in
+     * @param key Preference key, unique per sequence
+     * @param seed Highest existing ID, used when nothing is persisted yet
+     */
+    public IdSequence(SharedPreferences prefs, String key, Seed seed) {
+        this.prefs = prefs;
+        this.key = key;
+        this.seed = seed;
+    }
+
+    /**
+     * Allocate one ID
+     */
+    public synchronized int next() {
+        return reserve(1);
+    }
+
+    /**
+     * Allocate consecutive IDs for a batch insert
+     * @return The first of count IDs
+     */
+    public synchronized int reserve(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        load();
+        if (count > limit - next) {
+            // Not reserved ahead: persist the new block before handing out any of its IDs
+            persist(next + Math.max(count, BLOCK_SIZE));
+        }
+        int first = next;
+        next += count;
+        prefetchIfLow();
+        return first;
+    }
+
+    /**
+     * Make sure an ID assigned elsewhere, e.g. by a caller or an import, is
+     * never handed out
+     */
+    public synchronized void skipPast(int id) {
+        load();
+        if (id < next) {
+            return;
+        }
+        next = id + 1;
+        if (next > limit) {
+            persist(next);
+        }
+        prefetchIfLow();
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        int stored = prefs.getInt(key, 0);
+        next = stored > 0 ? stored : seed.maxExistingId() + 1;
+        limit = next;
+        loaded = true;
+    }
+
+    /**
+     * Reserve the next block in the background once half of the current one is used
+     */
+    private void prefetchIfLow() {
+        if (prefetching || limit - next >= BLOCK_SIZE / 2) {
+            return;
+        }
+        prefetching = true;
+        final int newLimit = limit + BLOCK_SIZE;
+        PREFETCH.execute(() -> {
+            write(newLimit);
+            synchronized (IdSequence.this) {
+                limit = Math.max(limit, newLimit);
+                prefetching = false;
+            }
+        });
+    }
+
+    private void persist(int newLimit) {
+        write(newLimit);
+        limit = newLimit;
+    }
+
+    private void write(int newLimit) {
+        synchronized (writeLock) {
+            if (newLimit <= written) {
+                return;
+            }
+            // Synchronous, so a reservation is on disk before its IDs are used
+            if (!prefs.edit().putInt(key, newLimit).commit()) {
+                Log.e(TAG, "Failed to persist ID sequence " + key);
+            }
+            written = newLimit;
+        }
+    }
+}
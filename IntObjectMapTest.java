@@ -0,0 +1,123 @@
+package com.example.travelplane.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Open addressing with backward-shift deletion
+ */
+public class IntObjectMapTest {
+
+    // Capacity of a new map; it grows once more than half full
+    private static final int CAPACITY = 8;
+
+    @Test
+    public void putGetAndReplace() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertNull(map.put(7, "a"));
+        assertEquals("a", map.put(7, "b"));
+        assertEquals("b", map.get(7));
+        assertEquals(1, map.size());
+        assertNull(map.get(8));
+        assertFalse(map.containsKey(8));
+    }
+
+    @Test
+    public void removeAndReinsertAcrossWrappedProbeChain() {
+        // Three keys whose home is the last slot, so the chain wraps to slots 0 and 1,
+        // and one key whose home is slot 0, displaced to slot 2
+        List<Integer> lastSlot = keysWithHome(CAPACITY - 1, 3);
+        int firstSlot = keysWithHome(0, 1).get(0);
+
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int key : lastSlot) {
+            map.put(key, "last " + key);
+        }
+        map.put(firstSlot, "first");
+        assertEquals(4, map.size());
+
+        // Removing the head of the chain shifts every entry after it back, across the wrap
+        assertEquals("last " + lastSlot.get(0), map.remove(lastSlot.get(0)));
+        assertNull(map.get(lastSlot.get(0)));
+        assertEquals("last " + lastSlot.get(1), map.get(lastSlot.get(1)));
+        assertEquals("last " + lastSlot.get(2), map.get(lastSlot.get(2)));
+        assertEquals("first", map.get(firstSlot));
+
+        // Removing an entry that wrapped must not strand the one displaced after it
+        assertEquals("last " + lastSlot.get(2), map.remove(lastSlot.get(2)));
+        assertEquals("first", map.get(firstSlot));
+        assertEquals("last " + lastSlot.get(1), map.get(lastSlot.get(1)));
+
+        assertNull(map.put(lastSlot.get(0), "again"));
+        assertNull(map.put(lastSlot.get(2), "again"));
+        assertEquals(4, map.size());
+        assertEquals("again", map.get(lastSlot.get(0)));
+        assertEquals("again", map.get(lastSlot.get(2)));
+        assertEquals("first", map.get(firstSlot));
+        assertNull(map.remove(12345));
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomPutsAndRemoves() {
+        Random random = new Random(42);
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(64) - 32; // few keys, so chains collide often
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -32; key < 32; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+
+        List<Integer> values = new ArrayList<>();
+        map.valuesInto(values);
+        assertEquals(expected.size(), values.size());
+        assertTrue(values.containsAll(expected.values()));
+    }
+
+    @Test
+    public void clearEmptiesTheMap() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "v" + i);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(5));
+        map.put(5, "again");
+        assertEquals("again", map.get(5));
+    }
+
+    @Test
+    public void nullValuesAreRejected() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+
+    /**
+     * Keys whose home slot in a new map is the given one
+     */
+    private static List<Integer> keysWithHome(int slot, int count) {
+        List<Integer> keys = new ArrayList<>();
+        for (int key = 1; keys.size() < count; key++) {
+            int hash = key * 0x9E3779B9;
+            if (((hash ^ (hash >>> 16)) & (CAPACITY - 1)) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
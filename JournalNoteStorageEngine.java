@@ -0,0 +1,737 @@
+package com.example.travelplane.storage;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+
+import com.example.travelplane.models.ModelJson;
+import com.example.travelplane.models.TripNote;
+import com.example.travelplane.utils.IntObjectMap;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Append-only journal storage engine for trip notes.
+ * Every mutation appends a single record to a log file instead of
+ * rewriting the whole list. Records are compact binary (see BinaryFormat)
+ * or JSON lines written by the streaming TripNoteTypeAdapter; a journal in
+ * the other format is rewritten on open. Appends are buffered and flushed
+ * through WriteBehindScheduler, so a burst of edits reaches disk as one write.
+ * The engine only keeps the set of live IDs in
+ * memory; callers such as TripNoteRepository hold the notes themselves.
+ * The log is compacted on a background thread once most of its records
+ * have been superseded.
+ * On open, only a torn tail (an incomplete last record) is cut off. A
+ * journal that cannot be read before its end is never truncated or
+ * written to: it is moved aside and a new journal starts from the notes
+ * read before the damage.
+ */
+public class JournalNoteStorageEngine implements NoteStorageEngine {
+
+    private static final String TAG = "NoteJournal";
+    private static final String JOURNAL_FILE = "trip_notes.journal";
+    private static final String LEGACY_PREF_NAME = "TravelPlannerNotes";
+    private static final String LEGACY_KEY_NOTES = "notes";
+
+    private static final String OP_PUT = "put";
+    private static final String OP_DELETE = "delete";
+
+    // Binary record: op byte, unsigned varint payload length, payload
+    private static final int BINARY_OP_PUT = 1;
+    private static final int BINARY_OP_DELETE = 2;
+
+    // Compact only when the log is reasonably large and at least half of it is garbage
+    private static final int COMPACT_MIN_RECORDS = 256;
+
+    private static JournalNoteStorageEngine instance;
+
+    private final File journalFile;
+    private final StorageFormat preferredFormat;
+    private final SharedPreferences legacyPreferences;
+    private final String legacyKey;
+
+    private final ExecutorService compactor;
+
+    private final SparseBooleanArray liveIds = new SparseBooleanArray();
+    private StorageFormat format;
+    private OutputStream out;
+    private long journalLength;
+    private int recordCount;
+    private int generation;
+    private boolean opened;
+    private boolean compacting;
+    private boolean readOnly; // damaged journal that could not be moved aside
+
+    /**
+     * Get the shared journal used by TripNotesManager
+     */
+    public static synchronized JournalNoteStorageEngine getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new JournalNoteStorageEngine(
+                    new File(appContext.getFilesDir(), JOURNAL_FILE),
+                    StorageFormat.BINARY,
+                    appContext.getSharedPreferences(LEGACY_PREF_NAME, Context.MODE_PRIVATE),
+                    LEGACY_KEY_NOTES);
+        }
+        return instance;
+    }
+
+    /**
+     * @param journalFile Log file to append to
+     * @param format Record format to write; a journal in the other format is converted on open
+     * @param legacyPreferences Preferences holding notes written by the old whole-list format
+     * @param legacyKey Key of the old notes JSON blob, migrated on first open
+     */
+    public JournalNoteStorageEngine(File journalFile, StorageFormat format,
+                                    SharedPreferences legacyPreferences, String legacyKey) {
+        this.journalFile = journalFile;
+        this.preferredFormat = format;
+        this.format = format;
+        this.legacyPreferences = legacyPreferences;
+        this.legacyKey = legacyKey;
+
+        this.compactor = Executors.newSingleThreadExecutor();
+        WriteBehindScheduler.getInstance().register(journalFile.getPath(), this::flushJournal);
+    }
+
+    /**
+     * Replay the journal from disk. Meant to be called once when the
+     * caller builds its in-memory state.
+     */
+    @Override
+    public synchronized List<TripNote> loadAll() {
+        IntObjectMap<TripNote> notes = new IntObjectMap<>();
+        if (opened) {
+            flushJournal();
+            replay(journalFile, format, journalLength, notes);
+        } else {
+            open(notes);
+        }
+
+        List<TripNote> result = new ArrayList<>(notes.size());
+        notes.valuesInto(result);
+        return result;
+    }
+
+    @Override
+    public synchronized void put(TripNote note) {
+        ensureOpen();
+        liveIds.put(note.getId(), true);
+        append(encodePut(note), 1);
+    }
+
+    @Override
+    public synchronized void putAll(List<TripNote> notes) {
+        ensureOpen();
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        for (TripNote note : notes) {
+            liveIds.put(note.getId(), true);
+            byte[] record = encodePut(note);
+            batch.write(record, 0, record.length);
+        }
+        append(batch.toByteArray(), notes.size());
+    }
+
+    @Override
+    public synchronized void delete(int noteId) {
+        ensureOpen();
+        if (!liveIds.get(noteId)) {
+            return;
+        }
+        liveIds.delete(noteId);
+        append(encodeDelete(noteId), 1);
+    }
+
+    @Override
+    public synchronized void deleteAll(int[] noteIds) {
+        ensureOpen();
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        int records = 0;
+        for (int noteId : noteIds) {
+            if (liveIds.get(noteId)) {
+                liveIds.delete(noteId);
+                byte[] record = encodeDelete(noteId);
+                batch.write(record, 0, record.length);
+                records++;
+            }
+        }
+        if (records > 0) {
+            append(batch.toByteArray(), records);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        ensureOpen();
+        if (readOnly) {
+            Log.e(TAG, "Journal is damaged, not clearing it");
+            return;
+        }
+        liveIds.clear();
+        closeQuietly(out);
+        journalLength = 0;
+        recordCount = 0;
+        generation++; // invalidates any compaction in progress
+        openWriter(false);
+    }
+
+    // ==================== JOURNAL I/O ====================
+
+    private void ensureOpen() {
+        if (!opened) {
+            open(new IntObjectMap<TripNote>());
+        }
+    }
+
+    private void open(IntObjectMap<TripNote> notes) {
+        opened = true;
+
+        if (!journalFile.exists()) {
+            migrateLegacyNotes();
+        }
+
+        StorageFormat fileFormat = detectFormat();
+        ReplayResult result = replay(journalFile, fileFormat, Long.MAX_VALUE, notes);
+        if (result.damaged) {
+            openDamaged(notes);
+        } else if (fileFormat != preferredFormat && convert(notes)) {
+            journalLength = journalFile.length();
+            recordCount = notes.size();
+        } else {
+            format = fileFormat;
+            if (result.validLength < journalFile.length()) {
+                truncate(result.validLength);
+            }
+            journalLength = result.validLength;
+            recordCount = result.recordCount;
+        }
+
+        List<TripNote> live = new ArrayList<>(notes.size());
+        notes.valuesInto(live);
+        for (TripNote note : live) {
+            liveIds.put(note.getId(), true);
+        }
+        if (!readOnly) {
+            openWriter(true);
+        }
+    }
+
+    /**
+     * Keep a journal that could not be read to its end for recovery, and
+     * start a new one from the notes read before the damage
+     */
+    private void openDamaged(IntObjectMap<TripNote> notes) {
+        File damaged = new File(journalFile.getPath() + ".damaged-" + System.currentTimeMillis());
+        if (!journalFile.renameTo(damaged)) {
+            Log.e(TAG, "Journal is damaged and could not be moved aside; not writing to it");
+            readOnly = true;
+            journalLength = journalFile.length(); // loadAll still reads what it can
+            return;
+        }
+        Log.e(TAG, "Journal is damaged; kept as " + damaged.getName()
+                + ", continuing with the " + notes.size() + " notes read before the damage");
+        if (convert(notes)) {
+            journalLength = journalFile.length();
+            recordCount = notes.size();
+        }
+    }
+
+    /**
+     * Format of the journal on disk; an empty or missing journal takes the preferred one
+     */
+    private StorageFormat detectFormat() {
+        if (journalFile.length() == 0) {
+            return preferredFormat;
+        }
+        return BinaryFormat.isBinaryFile(journalFile) ? StorageFormat.BINARY : StorageFormat.JSON;
+    }
+
+    /**
+     * Rewrite a journal written in the other format as a snapshot in the preferred one
+     * @return false if the rewrite failed and the journal was left as it was
+     */
+    private boolean convert(IntObjectMap<TripNote> notes) {
+        List<TripNote> live = new ArrayList<>(notes.size());
+        notes.valuesInto(live);
+        File tmp = new File(journalFile.getPath() + ".convert");
+        try {
+            writeSnapshot(tmp, live);
+            if (!tmp.renameTo(journalFile)) {
+                throw new IOException("Could not rename " + tmp);
+            }
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to convert journal to " + preferredFormat, e);
+            tmp.delete();
+            return false;
+        }
+    }
+
+    /**
+     * Move notes stored by the old whole-list format into a fresh journal
+     */
+    private void migrateLegacyNotes() {
+        if (legacyPreferences == null || !legacyPreferences.contains(legacyKey)) {
+            return;
+        }
+
+        List<TripNote> legacyNotes = new SharedPreferencesNoteStorageEngine(legacyPreferences, legacyKey).loadAll();
+        File tmp = new File(journalFile.getPath() + ".migrate");
+        try {
+            writeSnapshot(tmp, legacyNotes);
+            if (!tmp.renameTo(journalFile)) {
+                throw new IOException("Could not rename " + tmp);
+            }
+            legacyPreferences.edit().remove(legacyKey).apply();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to migrate legacy notes", e);
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Replay up to {@code limit} bytes of a journal into a map. Touches no
+     * engine state, so the compactor can call it without holding the lock.
+     * Unless the result is marked damaged, anything after the returned
+     * valid length is a torn write.
+     */
+    private static ReplayResult replay(File file, StorageFormat format, long limit, IntObjectMap<TripNote> target) {
+        if (!file.exists()) {
+            return new ReplayResult();
+        }
+        return format == StorageFormat.BINARY
+                ? replayBinary(file, limit, target)
+                : replayJson(file, limit, target);
+    }
+
+    private static ReplayResult replayJson(File file, long limit, IntObjectMap<TripNote> target) {
+        ReplayResult result = new ReplayResult();
+
+        long position = 0;
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while (position < limit && (b = in.read()) != -1) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                // A complete line that does not parse is corruption, not a torn write
+                if (!applyRecord(new String(line.toByteArray(), StandardCharsets.UTF_8), target)) {
+                    Log.e(TAG, "Corrupt journal line ending at " + position);
+                    result.damaged = true;
+                    break;
+                }
+                line.reset();
+                result.recordCount++;
+                result.validLength = position;
+            }
+            // Bytes after the last newline are an incomplete line: torn write
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to replay journal", e);
+            result.damaged = true;
+        } finally {
+            closeQuietly(in);
+        }
+        return result;
+    }
+
+    private static ReplayResult replayBinary(File file, long limit, IntObjectMap<TripNote> target) {
+        ReplayResult result = new ReplayResult();
+        long end = Math.min(limit, file.length());
+        if (end < BinaryFormat.HEADER_SIZE) {
+            return result;
+        }
+
+        InputStream in = null;
+        try {
+            in = BinaryFormat.openForRead(file, BinaryFormat.KIND_NOTE_JOURNAL);
+        } catch (IOException e) {
+            // Wrong magic or a newer schema: nothing in the file can be trusted
+            Log.e(TAG, "Unreadable journal header", e);
+            result.damaged = true;
+            return result;
+        }
+        try {
+            long position = BinaryFormat.HEADER_SIZE;
+            result.validLength = position;
+            while (position < end) {
+                int op = in.read();
+                if (op != BINARY_OP_PUT && op != BINARY_OP_DELETE) {
+                    Log.e(TAG, "Unknown journal record type " + op + " at " + position);
+                    result.damaged = true;
+                    break;
+                }
+                long length = BinaryFormat.readUnsignedVarLong(in);
+                long payloadStart = position + 1 + BinaryFormat.unsignedVarLongSize(length);
+                long recordEnd = payloadStart + length;
+                if (recordEnd > end) {
+                    // A torn write, or a corrupt length pointing past the records that follow
+                    if (!isTornPayload(op, in, end - payloadStart)) {
+                        Log.e(TAG, "Corrupt journal record length at " + position);
+                        result.damaged = true;
+                    }
+                    break;
+                }
+                byte[] payload = new byte[(int) length];
+                BinaryFormat.readFully(in, payload, 0, payload.length);
+                if (!applyRecord(op, payload, target)) {
+                    Log.e(TAG, "Corrupt journal record at " + position);
+                    result.damaged = true;
+                    break;
+                }
+                position = recordEnd;
+                result.recordCount++;
+                result.validLength = position;
+            }
+        } catch (EOFException e) {
+            // Torn write at the end of the journal
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to replay journal", e);
+            result.damaged = true;
+        } finally {
+            closeQuietly(in);
+        }
+        return result;
+    }
+
+    /**
+     * Whether the bytes left after a record header are the start of its
+     * payload, cut short by a torn write. Decoding them then runs out of
+     * data. If the length was corrupt instead, the real payload is complete
+     * and decodes without reaching the end of the remaining bytes.
+     */
+    private static boolean isTornPayload(int op, InputStream in, long remaining) throws IOException {
+        byte[] partial = new byte[(int) remaining];
+        BinaryFormat.readFully(in, partial, 0, partial.length);
+        try {
+            InputStream payload = new ByteArrayInputStream(partial);
+            if (op == BINARY_OP_PUT) {
+                BinaryFormat.readTripNote(payload);
+            } else {
+                BinaryFormat.readVarInt(payload);
+            }
+            return false;
+        } catch (EOFException e) {
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean applyRecord(int op, byte[] payload, IntObjectMap<TripNote> target) {
+        try {
+            InputStream in = new ByteArrayInputStream(payload);
+            if (op == BINARY_OP_PUT) {
+                TripNote note = BinaryFormat.readTripNote(in);
+                if (in.available() == 0) {
+                    target.put(note.getId(), note);
+                    return true;
+                }
+            } else if (op == BINARY_OP_DELETE) {
+                int noteId = BinaryFormat.readVarInt(in);
+                if (in.available() == 0) {
+                    target.remove(noteId);
+                    return true;
+                }
+            }
+            // Bytes left over: the length does not match the record
+            Log.w(TAG, "Journal record longer than its payload");
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Unreadable journal record", e);
+        }
+        return false;
+    }
+
+    private static boolean applyRecord(String line, IntObjectMap<TripNote> target) {
+        try {
+            JsonReader in = new JsonReader(new StringReader(line));
+            String op = null;
+            TripNote note = null;
+            int noteId = 0;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "op":
+                        op = in.nextString();
+                        break;
+                    case "note":
+                        note = ModelJson.TRIP_NOTE.read(in);
+                        break;
+                    case "id":
+                        noteId = in.nextInt();
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+
+            if (OP_PUT.equals(op) && note != null) {
+                target.put(note.getId(), note);
+                return true;
+            } else if (OP_DELETE.equals(op)) {
+                target.remove(noteId);
+                return true;
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Unreadable journal record", e);
+        }
+        return false;
+    }
+
+    private byte[] encodePut(TripNote note) {
+        if (format == StorageFormat.BINARY) {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            try {
+                BinaryFormat.writeTripNote(payload, note);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // ByteArrayOutputStream does not throw
+            }
+            return encodeBinaryRecord(BINARY_OP_PUT, payload);
+        }
+
+        StringWriter buffer = new StringWriter();
+        try {
+            JsonWriter out = new JsonWriter(buffer);
+            out.beginObject();
+            out.name("op").value(OP_PUT);
+            out.name("note");
+            ModelJson.TRIP_NOTE.write(out, note);
+            out.endObject();
+            out.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringWriter does not throw
+        }
+        return (buffer + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] encodeDelete(int noteId) {
+        if (format == StorageFormat.BINARY) {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            try {
+                BinaryFormat.writeVarInt(payload, noteId);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return encodeBinaryRecord(BINARY_OP_DELETE, payload);
+        }
+        return ("{\"op\":\"" + OP_DELETE + "\",\"id\":" + noteId + "}\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encodeBinaryRecord(int op, ByteArrayOutputStream payload) {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(payload.size() + 6);
+        try {
+            record.write(op);
+            BinaryFormat.writeUnsignedVarLong(record, payload.size());
+            payload.writeTo(record);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return record.toByteArray();
+    }
+
+    /**
+     * Buffer encoded records; they reach the file on the next write-behind flush
+     */
+    private void append(byte[] bytes, int records) {
+        if (readOnly) {
+            Log.e(TAG, "Journal is damaged, not appending");
+            return;
+        }
+        try {
+            out.write(bytes);
+            journalLength += bytes.length;
+            recordCount += records;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to append journal records", e);
+        }
+        WriteBehindScheduler.getInstance().markDirty(journalFile.getPath());
+        maybeScheduleCompaction();
+    }
+
+    private synchronized void flushJournal() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to flush journal", e);
+        }
+    }
+
+    private void openWriter(boolean append) {
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(journalFile, append));
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open journal", e);
+            out = new ByteArrayOutputStream(); // keep working in memory only
+        }
+
+        if (format == StorageFormat.BINARY && journalLength == 0) {
+            try {
+                BinaryFormat.writeHeader(out, BinaryFormat.KIND_NOTE_JOURNAL);
+                journalLength = BinaryFormat.HEADER_SIZE;
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write journal header", e);
+            }
+        }
+    }
+
+    private void truncate(long length) {
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(journalFile, "rw");
+            file.setLength(length);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to truncate journal", e);
+        } finally {
+            closeQuietly(file);
+        }
+    }
+
+    private void writeSnapshot(File target, List<TripNote> snapshot) throws IOException {
+        FileOutputStream fileOut = new FileOutputStream(target, false);
+        OutputStream snapshotOut = new BufferedOutputStream(fileOut);
+        try {
+            if (format == StorageFormat.BINARY) {
+                BinaryFormat.writeHeader(snapshotOut, BinaryFormat.KIND_NOTE_JOURNAL);
+            }
+            for (TripNote note : snapshot) {
+                snapshotOut.write(encodePut(note));
+            }
+            snapshotOut.flush();
+            fileOut.getFD().sync();
+        } finally {
+            closeQuietly(snapshotOut);
+        }
+    }
+
+    // ==================== COMPACTION ====================
+
+    private void maybeScheduleCompaction() {
+        if (compacting || recordCount < COMPACT_MIN_RECORDS || recordCount < liveIds.size() * 2) {
+            return;
+        }
+        compacting = true;
+
+        // The compactor reads the prefix straight from the file
+        flushJournal();
+        final long snapshotLength = journalLength;
+        final int snapshotRecords = recordCount;
+        final int snapshotGeneration = generation;
+        compactor.execute(() -> compact(snapshotLength, snapshotRecords, snapshotGeneration));
+    }
+
+    /**
+     * Rewrite the journal as one record per live note. Runs on the compactor
+     * thread: the immutable prefix is replayed from disk, and records appended
+     * meanwhile are copied over before the swap.
+     */
+    private void compact(long snapshotLength, int snapshotRecords, int snapshotGeneration) {
+        File tmp = new File(journalFile.getPath() + ".compact");
+        try {
+            IntObjectMap<TripNote> live = new IntObjectMap<>();
+            if (replay(journalFile, format, snapshotLength, live).damaged) {
+                throw new IOException("Journal is unreadable, not compacting it");
+            }
+            List<TripNote> snapshot = new ArrayList<>(live.size());
+            live.valuesInto(snapshot);
+            writeSnapshot(tmp, snapshot);
+
+            synchronized (this) {
+                if (generation != snapshotGeneration) {
+                    return; // journal was cleared meanwhile
+                }
+                flushJournal();
+                copyRange(journalFile, snapshotLength, journalLength, tmp);
+                closeQuietly(out);
+                if (!tmp.renameTo(journalFile)) {
+                    openWriter(true);
+                    throw new IOException("Could not rename " + tmp);
+                }
+                journalLength = journalFile.length();
+                recordCount = snapshot.size() + (recordCount - snapshotRecords);
+                openWriter(true);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Journal compaction failed", e);
+        } finally {
+            tmp.delete();
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    private static void copyRange(File source, long from, long to, File target) throws IOException {
+        if (to <= from) {
+            return;
+        }
+        RandomAccessFile in = new RandomAccessFile(source, "r");
+        FileOutputStream targetOut = new FileOutputStream(target, true);
+        try {
+            in.seek(from);
+            byte[] buffer = new byte[8192];
+            long remaining = to - from;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                targetOut.write(buffer, 0, read);
+                remaining -= read;
+            }
+            targetOut.getFD().sync();
+        } finally {
+            closeQuietly(in);
+            closeQuietly(targetOut);
+        }
+    }
+
+    private static final class ReplayResult {
+        long validLength;
+        int recordCount;
+        boolean damaged; // unreadable before the end; must not be truncated
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do
+        }
+    }
+}
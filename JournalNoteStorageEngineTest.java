@@ -0,0 +1,223 @@
+package com.example.travelplane.storage;
+
+import com.example.travelplane.models.TripNote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replay of intact, torn and corrupt journals. A torn tail is cut off;
+ * a journal damaged before its end keeps its bytes in a file moved aside.
+ * The engine uses android.util classes, so the unit tests need
+ * testOptions.unitTests.isReturnDefaultValues in the app module; none of
+ * the checks here depend on what those classes return.
+ */
+public class JournalNoteStorageEngineTest {
+
+    private static final int NOTES = 20;
+
+    private File dir;
+    private File journal;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal").toFile();
+        journal = new File(dir, "notes.journal");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void intactJournalReplaysEveryNote() {
+        for (StorageFormat format : StorageFormat.values()) {
+            writeNotes(format);
+            List<TripNote> notes = load(format);
+            assertEquals(format + " notes", NOTES, notes.size());
+            assertEquals("Note 1", notes.get(0).getTitle());
+            assertEquals("Description 20", notes.get(NOTES - 1).getDescription());
+        }
+    }
+
+    @Test
+    public void latestPutWins() {
+        JournalNoteStorageEngine engine = engine(StorageFormat.BINARY);
+        engine.loadAll();
+        engine.put(new TripNote(1, "Draft", "first", 1L));
+        engine.put(new TripNote(1, "Final", "second", 2L));
+        engine.loadAll(); // writes the buffered records, as a write-behind flush would
+
+        List<TripNote> notes = load(StorageFormat.BINARY);
+        assertEquals(1, notes.size());
+        assertEquals("Final", notes.get(0).getTitle());
+    }
+
+    @Test
+    public void tornBinaryTailIsCutOff() throws IOException {
+        writeNotes(StorageFormat.BINARY);
+        byte[] bytes = read();
+        write(Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertEquals(NOTES - 1, load(StorageFormat.BINARY).size());
+        assertEquals(recordStart(bytes, NOTES - 1), journal.length());
+        assertNull(damagedFile());
+    }
+
+    @Test
+    public void tornJsonTailIsCutOff() throws IOException {
+        writeNotes(StorageFormat.JSON);
+        byte[] bytes = read();
+        write(Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertEquals(NOTES - 1, load(StorageFormat.JSON).size());
+        assertEquals('\n', read()[(int) journal.length() - 1]);
+        assertNull(damagedFile());
+    }
+
+    @Test
+    public void corruptBinaryRecordKeepsJournalAside() throws IOException {
+        writeNotes(StorageFormat.BINARY);
+        byte[] bytes = read();
+        byte[] corrupt = bytes.clone();
+        corrupt[(int) recordStart(bytes, 10)] = 9; // unknown record type
+        write(corrupt);
+
+        assertEquals(10, load(StorageFormat.BINARY).size());
+        assertDamagedCopy(corrupt);
+        assertEquals(10, load(StorageFormat.BINARY).size()); // new journal holds the notes read
+    }
+
+    @Test
+    public void corruptLengthPastTheEndIsNotTakenForATornTail() throws IOException {
+        writeNotes(StorageFormat.BINARY);
+        byte[] bytes = read();
+        byte[] corrupt = bytes.clone();
+        // One-byte length of record 15, now pointing past the 5 records after it
+        corrupt[(int) recordStart(bytes, 15) + 1] = 0x7F;
+        write(corrupt);
+
+        assertEquals(15, load(StorageFormat.BINARY).size());
+        assertDamagedCopy(corrupt);
+    }
+
+    @Test
+    public void corruptJsonLineKeepsJournalAside() throws IOException {
+        writeNotes(StorageFormat.JSON);
+        byte[] bytes = read();
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        int line = ordinalIndexOf(text, '\n', 5) + 1; // start of the sixth line
+        byte[] corrupt = bytes.clone();
+        corrupt[line] = '#';
+        write(corrupt);
+
+        assertEquals(5, load(StorageFormat.JSON).size());
+        assertDamagedCopy(corrupt);
+    }
+
+    @Test
+    public void unreadableHeaderKeepsJournalAside() throws IOException {
+        writeNotes(StorageFormat.BINARY);
+        byte[] corrupt = read();
+        corrupt[4] = (byte) (BinaryFormat.SCHEMA_VERSION + 1);
+        write(corrupt);
+
+        assertEquals(0, load(StorageFormat.BINARY).size());
+        assertDamagedCopy(corrupt);
+    }
+
+    @Test
+    public void journalInOtherFormatIsConverted() throws IOException {
+        writeNotes(StorageFormat.JSON);
+        assertEquals(NOTES, load(StorageFormat.BINARY).size());
+        assertTrue(BinaryFormat.isBinaryFile(journal));
+        assertEquals(NOTES, load(StorageFormat.BINARY).size());
+    }
+
+    private JournalNoteStorageEngine engine(StorageFormat format) {
+        return new JournalNoteStorageEngine(journal, format, null, null);
+    }
+
+    private void writeNotes(StorageFormat format) {
+        journal.delete();
+        JournalNoteStorageEngine engine = engine(format);
+        engine.loadAll();
+        for (int i = 1; i <= NOTES; i++) {
+            engine.put(new TripNote(i, "Note " + i, "Description " + i, i));
+        }
+        engine.loadAll(); // writes the buffered records, as a write-behind flush would
+    }
+
+    /**
+     * Open the journal with a new engine, as on the next app start
+     */
+    private List<TripNote> load(StorageFormat format) {
+        List<TripNote> notes = new ArrayList<>(engine(format).loadAll());
+        notes.sort(Comparator.comparingInt(TripNote::getId));
+        return notes;
+    }
+
+    /**
+     * File offset of a record of a binary journal
+     */
+    private static long recordStart(byte[] journalBytes, int record) throws IOException {
+        InputStream in = new ByteArrayInputStream(journalBytes);
+        long position = BinaryFormat.HEADER_SIZE;
+        in.skip(position);
+        for (int i = 0; i < record; i++) {
+            in.read(); // op
+            long length = BinaryFormat.readUnsignedVarLong(in);
+            in.skip(length);
+            position += 1 + BinaryFormat.unsignedVarLongSize(length) + length;
+        }
+        return position;
+    }
+
+    private static int ordinalIndexOf(String text, char c, int ordinal) {
+        int index = -1;
+        for (int i = 0; i < ordinal; i++) {
+            index = text.indexOf(c, index + 1);
+        }
+        return index;
+    }
+
+    private void assertDamagedCopy(byte[] expected) throws IOException {
+        File damaged = damagedFile();
+        assertNotNull("damaged journal kept", damaged);
+        assertArrayEquals("damaged journal unchanged", expected, Files.readAllBytes(damaged.toPath()));
+    }
+
+    private File damagedFile() {
+        File[] files = dir.listFiles((d, name) -> name.startsWith(journal.getName() + ".damaged-"));
+        return files != null && files.length > 0 ? files[0] : null;
+    }
+
+    private byte[] read() throws IOException {
+        return Files.readAllBytes(journal.toPath());
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        Files.write(journal.toPath(), bytes);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.travelplane.storage;
+
+import com.example.travelplane.models.ModelJson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams model lists to and from JSON files without building the whole
+ * JSON document as a String
+ */
+public final class JsonFiles {
+
+    private JsonFiles() {
+    }
+
+    /**
+     * Read a JSON array file
+     * @return The items, or an empty list if the file does not exist
+     */
+    public static <T> List<T> readList(File file, TypeAdapter<T> adapter) throws IOException {
+        JsonReader in = new JsonReader(new InputStreamReader(
+                new BufferedInputStream(new FileInputStream(file)), StandardCharsets.UTF_8));
+        try {
+            return ModelJson.readList(in, adapter);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Write a JSON array file atomically (temp file + rename)
+     */
+    public static <T> void writeList(File file, List<T> list, TypeAdapter<T> adapter) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream fileOut = new FileOutputStream(tmp);
+        JsonWriter out = new JsonWriter(new OutputStreamWriter(new BufferedOutputStream(fileOut), StandardCharsets.UTF_8));
+        try {
+            ModelJson.writeList(out, list, adapter);
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not rename " + tmp);
+        }
+    }
+}
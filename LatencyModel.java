@@ -0,0 +1,20 @@
+package com.example.travelplane.backend;
+
+/**
+ * Decides how long a simulated backend call takes and whether it fails.
+ * See LatencyModels for the built-in implementations.
+ */
+public interface LatencyModel {
+
+    /**
+     * @param operation Operation name, one of the BackendService.OP_* constants
+     * @return Delay in milliseconds before the operation completes
+     */
+    long delayMillis(String operation);
+
+    /**
+     * @param operation Operation name, one of the BackendService.OP_* constants
+     * @return Error message to fail the call with, or null to let it succeed
+     */
+    String failure(String operation);
+}
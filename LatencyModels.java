@@ -0,0 +1,173 @@
+package com.example.travelplane.backend;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Factory methods for the LatencyModel implementations used by BackendService
+ */
+public final class LatencyModels {
+
+    private static final Random RANDOM = new Random();
+
+    private LatencyModels() {
+    }
+
+    /**
+     * Calls complete immediately
+     */
+    public static LatencyModel none() {
+        return fixed(0);
+    }
+
+    /**
+     * Every call takes the same time
+     */
+    public static LatencyModel fixed(long delayMs) {
+        return new Fixed(delayMs);
+    }
+
+    /**
+     * Delay drawn uniformly from [minMs, maxMs]
+     */
+    public static LatencyModel uniform(long minMs, long maxMs) {
+        return new Uniform(minMs, maxMs);
+    }
+
+    /**
+     * Delay drawn from a normal distribution, clamped at zero
+     */
+    public static LatencyModel normal(long meanMs, long stdDevMs) {
+        return new Normal(meanMs, stdDevMs);
+    }
+
+    /**
+     * Different models per operation name
+     * @param models Model for each BackendService.OP_* name
+     * @param fallback Model for operations missing from the map
+     */
+    public static LatencyModel perOperation(Map<String, LatencyModel> models, LatencyModel fallback) {
+        return new PerOperation(models, fallback);
+    }
+
+    /**
+     * Wrap a model so that a fraction of calls fail
+     * @param failureRate Probability in [0, 1] that a call fails
+     * @param message Error message passed to BackendCallback.onError
+     */
+    public static LatencyModel withFailures(LatencyModel base, double failureRate, String message) {
+        return new Failing(base, failureRate, message);
+    }
+
+    private static final class Fixed implements LatencyModel {
+        private final long delayMs;
+
+        Fixed(long delayMs) {
+            this.delayMs = Math.max(0, delayMs);
+        }
+
+        @Override
+        public long delayMillis(String operation) {
+            return delayMs;
+        }
+
+        @Override
+        public String failure(String operation) {
+            return null;
+        }
+    }
+
+    private static final class Uniform implements LatencyModel {
+        private final long minMs;
+        private final long spanMs;
+
+        Uniform(long minMs, long maxMs) {
+            if (maxMs < minMs) {
+                throw new IllegalArgumentException("maxMs < minMs");
+            }
+            this.minMs = Math.max(0, minMs);
+            this.spanMs = maxMs - this.minMs;
+        }
+
+        @Override
+        public long delayMillis(String operation) {
+            return minMs + (long) (RANDOM.nextDouble() * (spanMs + 1));
+        }
+
+        @Override
+        public String failure(String operation) {
+            return null;
+        }
+    }
+
+    private static final class Normal implements LatencyModel {
+        private final long meanMs;
+        private final long stdDevMs;
+
+        Normal(long meanMs, long stdDevMs) {
+            this.meanMs = meanMs;
+            this.stdDevMs = stdDevMs;
+        }
+
+        @Override
+        public long delayMillis(String operation) {
+            return Math.max(0, Math.round(meanMs + RANDOM.nextGaussian() * stdDevMs));
+        }
+
+        @Override
+        public String failure(String operation) {
+            return null;
+        }
+    }
+
+    private static final class PerOperation implements LatencyModel {
+        private final Map<String, LatencyModel> models;
+        private final LatencyModel fallback;
+
+        PerOperation(Map<String, LatencyModel> models, LatencyModel fallback) {
+            this.models = new HashMap<>(models);
+            this.fallback = fallback;
+        }
+
+        private LatencyModel modelFor(String operation) {
+            LatencyModel model = models.get(operation);
+            return model != null ? model : fallback;
+        }
+
+        @Override
+        public long delayMillis(String operation) {
+            return modelFor(operation).delayMillis(operation);
+        }
+
+        @Override
+        public String failure(String operation) {
+            return modelFor(operation).failure(operation);
+        }
+    }
+
+    private static final class Failing implements LatencyModel {
+        private final LatencyModel base;
+        private final double failureRate;
+        private final String message;
+
+        Failing(LatencyModel base, double failureRate, String message) {
+            this.base = base;
+            this.failureRate = failureRate;
+            this.message = message;
+        }
+
+        @Override
+        public long delayMillis(String operation) {
+            return base.delayMillis(operation);
+        }
+
+        @Override
+        public String failure(String operation) {
+            if (RANDOM.nextDouble() < failureRate) {
+                return message;
+            }
+            return base.failure(operation);
+        }
+    }
+}
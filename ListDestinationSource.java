@@ -0,0 +1,36 @@
+package com.example.travelplane.storage;
+
+import com.example.travelplane.models.Destination;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DestinationSource over an in-memory list
+ */
+public class ListDestinationSource implements DestinationSource {
+
+    private final List<Destination> destinations;
+
+    /**
+     * @param destinations List to expose; null means empty. Not copied.
+     */
+    public ListDestinationSource(List<Destination> destinations) {
+        this.destinations = destinations != null ? destinations : new ArrayList<Destination>();
+    }
+
+    @Override
+    public int size() {
+        return destinations.size();
+    }
+
+    @Override
+    public Destination get(int position) {
+        return destinations.get(position);
+    }
+
+    @Override
+    public int getId(int position) {
+        return destinations.get(position).getId();
+    }
+}
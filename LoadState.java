@@ -0,0 +1,61 @@
+package com.example.travelplane.viewmodels;
+
+/**
+ * Result of a background load, as observed by a screen.
+ * While loading or after an error, the data of the previous successful
+ * load is kept so the screen can go on showing it.
+ *
+ * @param <T> Loaded data type
+ */
+public final class LoadState<T> {
+
+    public enum Status {
+        LOADING,
+        SUCCESS,
+        ERROR
+    }
+
+    private final Status status;
+    private final T data;
+    private final String error;
+
+    private LoadState(Status status, T data, String error) {
+        this.status = status;
+        this.data = data;
+        this.error = error;
+    }
+
+    public static <T> LoadState<T> loading(T previousData) {
+        return new LoadState<>(Status.LOADING, previousData, null);
+    }
+
+    public static <T> LoadState<T> success(T data) {
+        return new LoadState<>(Status.SUCCESS, data, null);
+    }
+
+    public static <T> LoadState<T> error(String error, T previousData) {
+        return new LoadState<>(Status.ERROR, previousData, error);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isLoading() {
+        return status == Status.LOADING;
+    }
+
+    /**
+     * @return The loaded data, or the previous data while loading or after an error; may be null
+     */
+    public T getData() {
+        return data;
+    }
+
+    /**
+     * @return The error message, or null unless the status is ERROR
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.travelplane.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers shared by the model TypeAdapters
+ */
+public final class ModelJson {
+
+    public static final TripNoteTypeAdapter TRIP_NOTE = new TripNoteTypeAdapter();
+    public static final DestinationTypeAdapter DESTINATION = new DestinationTypeAdapter();
+    public static final UserTypeAdapter USER = new UserTypeAdapter();
+
+    private ModelJson() {
+    }
+
+    /**
+     * Read a string that may be JSON null
+     */
+    static String nextNullableString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    /**
+     * Stream a JSON array of models
+     */
+    public static <T> List<T> readList(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        List<T> list = new ArrayList<>();
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return list;
+        }
+        in.beginArray();
+        while (in.hasNext()) {
+            T item = adapter.read(in);
+            if (item != null) {
+                list.add(item);
+            }
+        }
+        in.endArray();
+        return list;
+    }
+
+    /**
+     * Stream a list of models as a JSON array
+     */
+    public static <T> void writeList(JsonWriter out, List<T> list, TypeAdapter<T> adapter) throws IOException {
+        out.beginArray();
+        for (T item : list) {
+            adapter.write(out, item);
+        }
+        out.endArray();
+    }
+}
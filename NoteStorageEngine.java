@@ -0,0 +1,47 @@
+package com.example.travelplane.storage;
+
+import com.example.travelplane.models.TripNote;
+
+import java.util.List;
+
+/**
+ * Storage engine used by TripNotesManager to persist trip notes.
+ * Implementations decide how individual mutations reach disk.
+ */
+public interface NoteStorageEngine {
+
+    /**
+     * Load all stored notes
+     * @return Notes in insertion order
+     */
+    List<TripNote> loadAll();
+
+    /**
+     * Insert a new note or replace the note with the same ID
+     * @param note Note to store
+     */
+    void put(TripNote note);
+
+    /**
+     * Insert or replace several notes as one write
+     * @param notes Notes to store
+     */
+    void putAll(List<TripNote> notes);
+
+    /**
+     * Remove a note
+     * @param noteId ID of the note to remove
+     */
+    void delete(int noteId);
+
+    /**
+     * Remove several notes as one write. Unknown IDs are ignored.
+     * @param noteIds IDs of the notes to remove
+     */
+    void deleteAll(int[] noteIds);
+
+    /**
+     * Remove all notes
+     */
+    void clear();
+}
@@ -0,0 +1,129 @@
+package com.example.travelplane.storage;
+
+import android.util.Log;
+import android.util.LruCache;
+
+import com.example.travelplane.models.Destination;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * DestinationSource that decodes another source in fixed-size pages.
+ * Only a bounded number of pages is cached (least recently used first out),
+ * so memory stays flat no matter how long the list is. Pages within the
+ * prefetch distance of the position being read are decoded ahead of time
+ * on a background thread; a page that is still missing when it is bound is
+ * decoded synchronously.
+ */
+public class PagedDestinationSource implements DestinationSource {
+
+    private static final String TAG = "PagedDestinations";
+
+    // One loader for all paged sources; pages are small and cheap to decode
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor();
+
+    private final DestinationSource source;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final LruCache<Integer, Destination[]> pages;
+    private final Set<Integer> loading = new HashSet<>();
+
+    /**
+     * @param source Source to page over, typically a DestinationCatalog
+     * @param pageSize Rows per page
+     * @param prefetchDistance Rows ahead of and behind the read position to keep loaded
+     * @param maxPages Maximum number of decoded pages kept in memory
+     */
+    public PagedDestinationSource(DestinationSource source, int pageSize, int prefetchDistance, int maxPages) {
+        if (pageSize <= 0 || maxPages <= 0) {
+            throw new IllegalArgumentException("Page size and page count must be positive");
+        }
+        this.source = source;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.pages = new LruCache<>(maxPages);
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+
+    @Override
+    public Destination get(int position) {
+        int page = position / pageSize;
+        Destination[] rows = pages.get(page);
+        if (rows == null) {
+            rows = loadPage(page);
+        }
+        loadAround(position);
+        return rows[position - page * pageSize];
+    }
+
+    @Override
+    public int getId(int position) {
+        return source.getId(position);
+    }
+
+    /**
+     * The source being paged over
+     */
+    public DestinationSource getSource() {
+        return source;
+    }
+
+    /**
+     * Start loading the pages within the prefetch distance of a position,
+     * e.g. the last visible row while scrolling
+     */
+    public void loadAround(int position) {
+        int page = position / pageSize;
+        prefetch(page);
+
+        int ahead = Math.min(position + prefetchDistance, size() - 1) / pageSize;
+        if (ahead != page) {
+            prefetch(ahead);
+        }
+        int behind = Math.max(position - prefetchDistance, 0) / pageSize;
+        if (behind != page) {
+            prefetch(behind);
+        }
+    }
+
+    private void prefetch(final int page) {
+        if (page < 0 || page * pageSize >= size()) {
+            return;
+        }
+        synchronized (loading) {
+            if (pages.get(page) != null || !loading.add(page)) {
+                return;
+            }
+        }
+
+        LOADER.execute(() -> {
+            try {
+                loadPage(page);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to prefetch page " + page, e);
+            } finally {
+                synchronized (loading) {
+                    loading.remove(page);
+                }
+            }
+        });
+    }
+
+    private Destination[] loadPage(int page) {
+        int start = page * pageSize;
+        int end = Math.min(start + pageSize, size());
+        Destination[] rows = new Destination[end - start];
+        for (int i = start; i < end; i++) {
+            rows[i - start] = source.get(i);
+        }
+        pages.put(page, rows);
+        return rows;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.travelplane.backend;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs tasks on a fixed number of worker threads, taking them from one
+ * bounded FIFO queue per priority class. A free worker always takes the
+ * oldest task of the most urgent class that is below its concurrency
+ * limit, so bulk work cannot hold every worker while interactive calls
+ * wait. A task submitted to a full queue is rejected instead of queued,
+ * which pushes back on the caller.
+ */
+public class PriorityScheduler {
+
+    /**
+     * Priority classes, most urgent first
+     */
+    public enum Priority {
+        /** A user is waiting on the result, e.g. sign in */
+        INTERACTIVE,
+        /** Reads and writes the user did not wait for, e.g. refreshes */
+        BACKGROUND,
+        /** Batch work such as syncing a whole dataset */
+        BULK
+    }
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final int maxRunning;
+    private final int[] classMaxRunning;
+    private final int[] queueCapacity;
+    private final ArrayDeque<Runnable>[] queues;
+    private final int[] classRunning;
+    private final ExecutorService workers;
+    private int running;
+
+    /**
+     * @param maxRunning Number of worker threads
+     * @param classMaxRunning Maximum running tasks of each class, indexed by Priority ordinal
+     * @param queueCapacity Maximum queued tasks of each class, indexed by Priority ordinal
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PriorityScheduler(int maxRunning, int[] classMaxRunning, int[] queueCapacity) {
+        if (maxRunning <= 0
+                || classMaxRunning.length != PRIORITIES.length
+                || queueCapacity.length != PRIORITIES.length) {
+            throw new IllegalArgumentException("Need a positive worker count and a limit per priority class");
+        }
+        this.maxRunning = maxRunning;
+        this.classMaxRunning = classMaxRunning.clone();
+        this.queueCapacity = queueCapacity.clone();
+        this.classRunning = new int[PRIORITIES.length];
+        this.queues = new ArrayDeque[PRIORITIES.length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+        // Never given more tasks than it has threads, so its own queue stays empty
+        this.workers = Executors.newFixedThreadPool(maxRunning);
+    }
+
+    /**
+     * Queue a task
+     * @throws RejectedExecutionException if the queue of its class is full
+     */
+    public synchronized void execute(Priority priority, Runnable task) {
+        ArrayDeque<Runnable> queue = queues[priority.ordinal()];
+        if (queue.size() >= queueCapacity[priority.ordinal()]) {
+            throw new RejectedExecutionException(priority + " queue is full");
+        }
+        queue.add(task);
+        dispatch();
+    }
+
+    /**
+     * Remove a task that has not started yet, e.g. because its request was cancelled
+     * @return true if the task was still queued
+     */
+    public synchronized boolean remove(Runnable task) {
+        for (ArrayDeque<Runnable> queue : queues) {
+            if (queue.remove(task)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int queuedCount(Priority priority) {
+        return queues[priority.ordinal()].size();
+    }
+
+    public synchronized int runningCount(Priority priority) {
+        return classRunning[priority.ordinal()];
+    }
+
+    /**
+     * Start queued tasks while workers are free. Caller holds the lock.
+     */
+    private void dispatch() {
+        while (running < maxRunning) {
+            int next = nextClass();
+            if (next < 0) {
+                return;
+            }
+            final int priority = next;
+            final Runnable task = queues[priority].poll();
+            classRunning[priority]++;
+            running++;
+            workers.execute(() -> run(priority, task));
+        }
+    }
+
+    /**
+     * @return Ordinal of the most urgent class with a queued task and a free slot, or -1
+     */
+    private int nextClass() {
+        for (int i = 0; i < queues.length; i++) {
+            if (!queues[i].isEmpty() && classRunning[i] < classMaxRunning[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void run(int priority, Runnable task) {
+        try {
+            task.run();
+        } finally {
+            synchronized (this) {
+                classRunning[priority]--;
+                running--;
+                dispatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.travelplane.backend;
+
+import com.example.travelplane.backend.PriorityScheduler.Priority;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Bounded queues per priority class and the order queued tasks start in
+ */
+public class PrioritySchedulerTest {
+
+    private static final long TIMEOUT_S = 5;
+
+    @Test
+    public void fullQueueRejectsOnlyItsOwnClass() throws InterruptedException {
+        PriorityScheduler scheduler = new PriorityScheduler(1, new int[] {1, 1, 1}, new int[] {1, 1, 1});
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.execute(Priority.INTERACTIVE, () -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(TIMEOUT_S, TimeUnit.SECONDS));
+
+        // The only worker is busy, so the next task of each class waits in its queue
+        scheduler.execute(Priority.INTERACTIVE, () -> { });
+        assertEquals(1, scheduler.queuedCount(Priority.INTERACTIVE));
+        assertThrows(RejectedExecutionException.class, () -> scheduler.execute(Priority.INTERACTIVE, () -> { }));
+
+        scheduler.execute(Priority.BULK, () -> { });
+        assertThrows(RejectedExecutionException.class, () -> scheduler.execute(Priority.BULK, () -> { }));
+        assertEquals(1, scheduler.queuedCount(Priority.BULK));
+
+        release.countDown();
+        awaitIdle(scheduler);
+        scheduler.execute(Priority.INTERACTIVE, () -> { }); // room again
+    }
+
+    @Test
+    public void mostUrgentQueuedTaskStartsFirst() throws InterruptedException {
+        PriorityScheduler scheduler = new PriorityScheduler(1, new int[] {1, 1, 1}, new int[] {4, 4, 4});
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        scheduler.execute(Priority.BULK, () -> await(release));
+
+        scheduler.execute(Priority.BULK, () -> order.add("bulk"));
+        scheduler.execute(Priority.BACKGROUND, () -> order.add("background 1"));
+        scheduler.execute(Priority.INTERACTIVE, () -> order.add("interactive"));
+        scheduler.execute(Priority.BACKGROUND, () -> order.add("background 2"));
+        release.countDown();
+        awaitIdle(scheduler);
+
+        assertEquals(Arrays.asList("interactive", "background 1", "background 2", "bulk"), order);
+    }
+
+    @Test
+    public void classLimitLeavesWorkersForOtherClasses() throws InterruptedException {
+        PriorityScheduler scheduler = new PriorityScheduler(2, new int[] {2, 2, 1}, new int[] {4, 4, 4});
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch interactiveRan = new CountDownLatch(1);
+        scheduler.execute(Priority.BULK, () -> await(release));
+        scheduler.execute(Priority.BULK, () -> await(release));
+
+        // The second bulk task waits for its class; the free worker takes interactive work
+        assertEquals(1, scheduler.runningCount(Priority.BULK));
+        assertEquals(1, scheduler.queuedCount(Priority.BULK));
+        scheduler.execute(Priority.INTERACTIVE, interactiveRan::countDown);
+        assertTrue(interactiveRan.await(TIMEOUT_S, TimeUnit.SECONDS));
+
+        release.countDown();
+        awaitIdle(scheduler);
+    }
+
+    @Test
+    public void removedTaskNeverRuns() throws InterruptedException {
+        PriorityScheduler scheduler = new PriorityScheduler(1, new int[] {1, 1, 1}, new int[] {2, 2, 2});
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        Runnable cancelled = () -> ran.add("cancelled");
+        scheduler.execute(Priority.INTERACTIVE, () -> await(release));
+        scheduler.execute(Priority.INTERACTIVE, cancelled);
+
+        assertTrue(scheduler.remove(cancelled));
+        assertFalse(scheduler.remove(cancelled));
+        release.countDown();
+        awaitIdle(scheduler);
+        assertTrue(ran.isEmpty());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_S, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitIdle(PriorityScheduler scheduler) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_S);
+        while (System.nanoTime() < deadline) {
+            boolean idle = true;
+            for (Priority priority : Priority.values()) {
+                idle &= scheduler.queuedCount(priority) == 0 && scheduler.runningCount(priority) == 0;
+            }
+            if (idle) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        fail("Scheduler did not become idle");
+    }
+}
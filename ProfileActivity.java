@@ -138,7 +138,7 @@ public class ProfileActivity extends AppCompatActivity {
                         "Using cached profile data",
                         Toast.LENGTH_SHORT).show();
             }
-        });
+        }).bindTo(this);
     }
 
     /**
@@ -181,7 +181,7 @@ public class ProfileActivity extends AppCompatActivity {
                             "Error: " + error,
                             Toast.LENGTH_SHORT).show();
                 }
-            });
+            }).bindTo(this);
         } else {
             // Just update session
             sessionManager.createLoginSession(email, newName);
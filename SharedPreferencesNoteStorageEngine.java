@@ -0,0 +1,100 @@
+package com.example.travelplane.storage;
+
+import android.content.SharedPreferences;
+
+import com.example.travelplane.models.TripNote;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Original storage engine: keeps the whole notes list as one JSON string
+ * in SharedPreferences and rewrites it on every mutation.
+ */
+public class SharedPreferencesNoteStorageEngine implements NoteStorageEngine {
+
+    private final SharedPreferences preferences;
+    private final String key;
+    private final Gson gson;
+
+    public SharedPreferencesNoteStorageEngine(SharedPreferences preferences, String key) {
+        this.preferences = preferences;
+        this.key = key;
+        this.gson = new Gson();
+    }
+
+    @Override
+    public List<TripNote> loadAll() {
+        String notesJson = preferences.getString(key, "");
+
+        if (notesJson.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            Type type = new TypeToken<List<TripNote>>() {}.getType();
+            List<TripNote> notes = gson.fromJson(notesJson, type);
+            return notes != null ? notes : new ArrayList<>();
+        } catch (Exception e) {
+            // If JSON is corrupted, return empty list and clear preferences
+            preferences.edit().remove(key).apply();
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public void put(TripNote note) {
+        putAll(Collections.singletonList(note));
+    }
+
+    @Override
+    public void putAll(List<TripNote> newNotes) {
+        List<TripNote> notes = loadAll();
+        for (TripNote note : newNotes) {
+            boolean replaced = false;
+            for (int i = 0; i < notes.size(); i++) {
+                if (notes.get(i).getId() == note.getId()) {
+                    notes.set(i, note);
+                    replaced = true;
+                    break;
+                }
+            }
+            if (!replaced) {
+                notes.add(note);
+            }
+        }
+        saveAll(notes);
+    }
+
+    @Override
+    public void delete(int noteId) {
+        deleteAll(new int[] {noteId});
+    }
+
+    @Override
+    public void deleteAll(int[] noteIds) {
+        List<TripNote> notes = loadAll();
+        for (int noteId : noteIds) {
+            for (int i = 0; i < notes.size(); i++) {
+                if (notes.get(i).getId() == noteId) {
+                    notes.remove(i);
+                    break;
+                }
+            }
+        }
+        saveAll(notes);
+    }
+
+    @Override
+    public void clear() {
+        preferences.edit().remove(key).apply();
+    }
+
+    private void saveAll(List<TripNote> notes) {
+        preferences.edit().putString(key, gson.toJson(notes)).apply();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.travelplane.storage;
+
+/**
+ * On-disk encoding used by the file-backed storage classes.
+ * Both formats are always readable; the configured one is used for writing,
+ * and files in the other format are migrated the first time they are opened.
+ */
+public enum StorageFormat {
+    /** Human-readable JSON written by the streaming TypeAdapters */
+    JSON,
+    /** Compact versioned binary records, see BinaryFormat */
+    BINARY
+}
@@ -0,0 +1,326 @@
+package com.example.travelplane.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index for full-text search over records with int IDs.
+ * Text is split into words of letters and digits, case-folded and stripped
+ * of accents, so "Café" is found by "cafe". Each word maps to the sorted
+ * IDs of the records containing it; words are kept sorted so a prefix
+ * query only visits the words starting with it.
+ * Records are added, replaced and removed one at a time, so the owner can
+ * keep the index current on every mutation instead of rebuilding it.
+ * Thread-safe.
+ */
+public class TextIndex {
+
+    private static final int[] NO_IDS = new int[0];
+
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final IntObjectMap<String[]> wordsById = new IntObjectMap<>();
+
+    /**
+     * Index a record, replacing what was indexed for its ID before
+     * @param fields Text fields of the record; null fields are skipped
+     */
+    public synchronized void put(int id, String... fields) {
+        remove(id);
+
+        List<String> words = new ArrayList<>();
+        for (String field : fields) {
+            tokenize(field, words);
+        }
+        String[] unique = distinct(words);
+        for (String word : unique) {
+            Postings ids = postings.get(word);
+            if (ids == null) {
+                ids = new Postings();
+                postings.put(word, ids);
+            }
+            ids.add(id);
+        }
+        wordsById.put(id, unique);
+    }
+
+    /**
+     * Remove a record from the index
+     * @return true if it was indexed
+     */
+    public synchronized boolean remove(int id) {
+        String[] words = wordsById.remove(id);
+        if (words == null) {
+            return false;
+        }
+        for (String word : words) {
+            Postings ids = postings.get(word);
+            if (ids != null && ids.remove(id) && ids.size == 0) {
+                postings.remove(word);
+            }
+        }
+        return true;
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        wordsById.clear();
+    }
+
+    /**
+     * Number of indexed records
+     */
+    public synchronized int size() {
+        return wordsById.size();
+    }
+
+    /**
+     * Find the records containing every word of a query, each word matched
+     * as a prefix so results update as the user types
+     * @return Matching IDs in ascending order; empty for a query without words
+     */
+    public synchronized int[] search(String query) {
+        List<String> words = new ArrayList<>();
+        tokenize(query, words);
+        if (words.isEmpty()) {
+            return NO_IDS;
+        }
+
+        // Start from the longest word, which usually matches the fewest records
+        String[] prefixes = distinct(words);
+        Arrays.sort(prefixes, (w1, w2) -> Integer.compare(w2.length(), w1.length()));
+
+        int[] result = matchPrefix(wordsWithPrefix(prefixes[0]));
+        for (int p = 1; p < prefixes.length && result.length > 0; p++) {
+            SortedMap<String, Postings> matching = wordsWithPrefix(prefixes[p]);
+            // Checking each candidate's own words costs a few lookups per
+            // candidate; merging costs a step per posting. Take the cheaper.
+            if (result.length * 8L < postingCount(matching)) {
+                result = filter(result, prefixes[p]);
+            } else {
+                result = intersect(result, matchPrefix(matching));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Split text into case-folded words without accents
+     */
+    static void tokenize(String text, Collection<String> out) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue; // accent split off by NFD; words continue across it
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                out.add(stripMarks(folded.substring(start, i)));
+                start = -1;
+            }
+        }
+    }
+
+    private static String stripMarks(String word) {
+        StringBuilder result = null;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                if (result == null) {
+                    result = new StringBuilder(word.length()).append(word, 0, i);
+                }
+            } else if (result != null) {
+                result.append(c);
+            }
+        }
+        return result != null ? result.toString() : word;
+    }
+
+    private static String[] distinct(List<String> words) {
+        String[] sorted = words.toArray(new String[0]);
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || !sorted[i].equals(sorted[count - 1])) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    private SortedMap<String, Postings> wordsWithPrefix(String prefix) {
+        return postings.subMap(prefix, prefix + Character.MAX_VALUE);
+    }
+
+    private static long postingCount(SortedMap<String, Postings> words) {
+        long total = 0;
+        for (Postings ids : words.values()) {
+            total += ids.size;
+        }
+        return total;
+    }
+
+    /**
+     * Keep the IDs of the records with a word starting with a prefix
+     */
+    private int[] filter(int[] ids, String prefix) {
+        int count = 0;
+        for (int id : ids) {
+            if (hasPrefix(wordsById.get(id), prefix)) {
+                ids[count++] = id;
+            }
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Whether one of a record's sorted words starts with a prefix
+     */
+    private static boolean hasPrefix(String[] words, String prefix) {
+        int index = Arrays.binarySearch(words, prefix);
+        if (index >= 0) {
+            return true;
+        }
+        index = -index - 1; // first word after the prefix
+        return index < words.length && words[index].startsWith(prefix);
+    }
+
+    /**
+     * IDs of the records containing any of the given words, ascending
+     */
+    private static int[] matchPrefix(SortedMap<String, Postings> words) {
+        if (words.isEmpty()) {
+            return NO_IDS;
+        }
+        if (words.size() == 1) {
+            return words.values().iterator().next().toArray();
+        }
+
+        int total = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (Postings ids : words.values()) {
+            total += ids.size;
+            min = Math.min(min, ids.ids[0]);
+            max = Math.max(max, ids.ids[ids.size - 1]);
+        }
+        if ((long) max - min < 8L * total) {
+            return union(words.values(), min, max);
+        }
+
+        int[] union = new int[total];
+        int length = 0;
+        for (Postings ids : words.values()) {
+            System.arraycopy(ids.ids, 0, union, length, ids.size);
+            length += ids.size;
+        }
+        Arrays.sort(union);
+
+        int count = 0;
+        for (int i = 0; i < union.length; i++) {
+            if (i == 0 || union[i] != union[count - 1]) {
+                union[count++] = union[i];
+            }
+        }
+        return Arrays.copyOf(union, count);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Union of postings whose IDs are dense within [min, max], by marking
+     * them in a bitmap instead of sorting
+     */
+    private static int[] union(Collection<Postings> lists, int min, int max) {
+        long[] bits = new long[(int) (((long) max - min) >>> 6) + 1];
+        int count = 0;
+        for (Postings ids : lists) {
+            for (int i = 0; i < ids.size; i++) {
+                int offset = ids.ids[i] - min;
+                long mask = 1L << offset;
+                if ((bits[offset >>> 6] & mask) == 0) {
+                    bits[offset >>> 6] |= mask;
+                    count++;
+                }
+            }
+        }
+
+        int[] result = new int[count];
+        int index = 0;
+        for (int word = 0; word < bits.length; word++) {
+            long value = bits[word];
+            while (value != 0) {
+                result[index++] = min + (word << 6) + Long.numberOfTrailingZeros(value);
+                value &= value - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sorted set of record IDs for one word
+     */
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
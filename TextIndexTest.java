@@ -0,0 +1,55 @@
+package com.example.travelplane.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Prefix search over case-folded, accent-free words
+ */
+public class TextIndexTest {
+
+    @Test
+    public void everyQueryWordMatchesAsAPrefix() {
+        TextIndex index = new TextIndex();
+        index.put(1, "Paris in spring", "Cafés and museums");
+        index.put(2, "Spring in Kyoto", "Temples");
+        index.put(3, "Parma", null);
+
+        assertArrayEquals(new int[] {1, 3}, index.search("par"));
+        assertArrayEquals(new int[] {1, 2}, index.search("SPRING"));
+        assertArrayEquals(new int[] {1}, index.search("spr par"));
+        assertArrayEquals(new int[] {1}, index.search("cafe"));
+        assertArrayEquals(new int[0], index.search("spring temples paris"));
+        assertArrayEquals(new int[0], index.search("  ,. "));
+    }
+
+    @Test
+    public void putReplacesAndRemoveForgets() {
+        TextIndex index = new TextIndex();
+        index.put(7, "Lisbon");
+        index.put(7, "Porto");
+        assertArrayEquals(new int[0], index.search("lis"));
+        assertArrayEquals(new int[] {7}, index.search("port"));
+        assertEquals(1, index.size());
+
+        assertTrue(index.remove(7));
+        assertFalse(index.remove(7));
+        assertArrayEquals(new int[0], index.search("port"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void resultsAreSortedAcrossManyRecords() {
+        TextIndex index = new TextIndex();
+        for (int id = 500; id > 0; id--) {
+            index.put(id, id % 2 == 0 ? "even beach" : "odd beach", id % 10 == 0 ? "round" : null);
+        }
+        int[] round = index.search("beach round");
+        assertEquals(50, round.length);
+        for (int i = 0; i < round.length; i++) {
+            assertEquals((i + 1) * 10, round[i]);
+        }
+        assertEquals(250, index.search("ev bea").length);
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.travelplane.utils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads downsampled thumbnails of image URIs off the main thread.
+ * Images are decoded on a small background pool with an inSampleSize
+ * chosen for the target view, kept in an LRU memory cache, and saved as
+ * JPEG thumbnails in a disk cache so later loads skip the full-size decode.
+ * Each ImageView has at most one pending request: loading another URI into
+ * it, or calling cancel(), drops the previous one.
+ * All public methods must be called on the main thread.
+ */
+public class ThumbnailLoader {
+
+    private static final String TAG = "ThumbnailLoader";
+    private static final String DISK_CACHE_DIR = "thumbnails";
+    private static final long MAX_DISK_CACHE_BYTES = 20L * 1024 * 1024;
+    private static final int POOL_SIZE = 2;
+    private static final int JPEG_QUALITY = 85;
+
+    private static ThumbnailLoader instance;
+
+    private final ContentResolver contentResolver;
+    private final File diskCacheDir;
+    private final int maxSize;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Object diskLock = new Object();
+
+    // Pending request per view, main thread only
+    private final Map<ImageView, Request> pending = new WeakHashMap<>();
+
+    public static synchronized ThumbnailLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ThumbnailLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private ThumbnailLoader(Context context) {
+        contentResolver = context.getContentResolver();
+        diskCacheDir = new File(context.getCacheDir(), DISK_CACHE_DIR);
+        maxSize = context.getResources().getDisplayMetrics().widthPixels;
+        executor = Executors.newFixedThreadPool(POOL_SIZE);
+
+        // An eighth of the heap, measured in kilobytes
+        int cacheKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        memoryCache = new LruCache<String, Bitmap>(cacheKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+    }
+
+    /**
+     * Show a thumbnail of an image in a view, sized to the view
+     * @param uri Image URI; null or empty clears the view
+     */
+    public void load(String uri, ImageView view) {
+        cancel(view);
+        if (uri == null || uri.isEmpty()) {
+            view.setImageDrawable(null);
+            return;
+        }
+
+        int size = targetSize(view);
+        String key = uri + "@" + size;
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            view.setImageBitmap(cached);
+            return;
+        }
+
+        view.setImageDrawable(null);
+        final Request request = new Request(uri, key, size, view);
+        pending.put(view, request);
+        request.future = executor.submit(() -> run(request));
+    }
+
+    /**
+     * Drop the pending request of a view, e.g. when its ViewHolder is recycled
+     */
+    public void cancel(ImageView view) {
+        Request request = pending.remove(view);
+        if (request != null) {
+            request.cancelled = true;
+            if (request.future != null) {
+                request.future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Largest side to decode for a view: its measured or declared size,
+     * or the screen width if neither is known yet
+     */
+    private int targetSize(ImageView view) {
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        int width = view.getWidth() > 0 ? view.getWidth() : (params != null ? params.width : 0);
+        int height = view.getHeight() > 0 ? view.getHeight() : (params != null ? params.height : 0);
+        int size = Math.max(width, height);
+        return size > 0 ? Math.min(size, maxSize) : maxSize;
+    }
+
+    // ==================== BACKGROUND ====================
+
+    private void run(final Request request) {
+        if (request.cancelled) {
+            return;
+        }
+
+        Bitmap bitmap = readDiskCache(request.key);
+        if (bitmap == null) {
+            bitmap = decodeSampled(request);
+            if (bitmap != null) {
+                writeDiskCache(request.key, bitmap);
+            }
+        }
+        if (bitmap == null) {
+            return;
+        }
+        memoryCache.put(request.key, bitmap);
+
+        final Bitmap result = bitmap;
+        mainHandler.post(() -> deliver(request, result));
+    }
+
+    private Bitmap decodeSampled(Request request) {
+        Uri uri = Uri.parse(request.uri);
+        try {
+            // First pass reads only the dimensions
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            decode(uri, options);
+            if (options.outWidth <= 0 || options.outHeight <= 0 || request.cancelled) {
+                return null;
+            }
+
+            options.inSampleSize = sampleSize(options.outWidth, options.outHeight, request.size);
+            options.inJustDecodeBounds = false;
+            return decode(uri, options);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Failed to decode " + request.uri, e);
+            return null;
+        }
+    }
+
+    private Bitmap decode(Uri uri, BitmapFactory.Options options) throws IOException {
+        InputStream in = contentResolver.openInputStream(uri);
+        if (in == null) {
+            throw new IOException("Cannot open " + uri);
+        }
+        try {
+            return BitmapFactory.decodeStream(in, null, options);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Largest power of two that keeps both sides at least {@code size},
+     * or the longest side at least {@code size} for very elongated images
+     */
+    static int sampleSize(int width, int height, int size) {
+        int sampleSize = 1;
+        while (Math.min(width, height) / (sampleSize * 2) >= size
+                || Math.max(width, height) / (sampleSize * 2) >= size * 4) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private Bitmap readDiskCache(String key) {
+        File file = new File(diskCacheDir, fileName(key));
+        if (!file.exists()) {
+            return null;
+        }
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+        if (bitmap != null) {
+            file.setLastModified(System.currentTimeMillis()); // keeps recently used thumbnails on trim
+        }
+        return bitmap;
+    }
+
+    private void writeDiskCache(String key, Bitmap bitmap) {
+        synchronized (diskLock) {
+            if (!diskCacheDir.exists() && !diskCacheDir.mkdirs()) {
+                return;
+            }
+            File file = new File(diskCacheDir, fileName(key));
+            File tmp = new File(file.getPath() + ".tmp");
+            try {
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp));
+                try {
+                    bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+                } finally {
+                    out.close();
+                }
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("Could not rename " + tmp);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to cache thumbnail", e);
+                tmp.delete();
+                return;
+            }
+            trimDiskCache();
+        }
+    }
+
+    /**
+     * Delete the least recently used thumbnails above the size limit. Caller holds diskLock.
+     */
+    private void trimDiskCache() {
+        File[] files = diskCacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= MAX_DISK_CACHE_BYTES) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return Long.compare(f1.lastModified(), f2.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (total <= MAX_DISK_CACHE_BYTES) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + 4);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.append(".jpg").toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-1 is always available
+        }
+    }
+
+    // ==================== MAIN THREAD ====================
+
+    private void deliver(Request request, Bitmap bitmap) {
+        ImageView view = request.view.get();
+        if (view == null || request.cancelled || pending.get(view) != request) {
+            return; // recycled or rebound meanwhile
+        }
+        pending.remove(view);
+        view.setImageBitmap(bitmap);
+    }
+
+    private static final class Request {
+        final String uri;
+        final String key;
+        final int size;
+        final WeakReference<ImageView> view;
+        volatile boolean cancelled;
+        Future<?> future;
+
+        Request(String uri, String key, int size, ImageView view) {
+            this.uri = uri;
+            this.key = key;
+            this.size = size;
+            this.view = new WeakReference<>(view);
+        }
+    }
+}
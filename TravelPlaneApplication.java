@@ -0,0 +1,20 @@
+package com.example.travelplane;
+
+import android.app.Application;
+
+import com.example.travelplane.utils.DestinationCache;
+
+/**
+ * Application class
+ * Starts background work that screens depend on as early as possible
+ */
+public class TravelPlaneApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Map the destination catalog before DestinationsActivity asks for it
+        DestinationCache.getInstance(this).warmUp();
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.travelplane.models;
 
+import com.google.gson.annotations.JsonAdapter;
+
 /**
  * Model class representing a Trip Note
  */
+@JsonAdapter(TripNoteTypeAdapter.class)
 public class TripNote {
     private int id;
     private String title;
@@ -29,6 +32,14 @@ public class TripNote {
         this.imageUri = imageUri;
     }
 
+    /**
+     * Copy constructor
+     * @param other Note to copy
+     */
+    public TripNote(TripNote other) {
+        this(other.id, other.title, other.description, other.timestamp, other.imageUri);
+    }
+
     public int getId() {
         return id;
     }
@@ -0,0 +1,230 @@
+package com.example.travelplane.storage;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.travelplane.models.TripNote;
+import com.example.travelplane.utils.IntObjectMap;
+import com.example.travelplane.utils.TextIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Long-lived in-memory view of the trip notes, loaded once from a
+ * NoteStorageEngine and written through to it on every mutation.
+ * Notes are indexed by ID (primitive int keys), by timestamp, and by the
+ * words of their title and description for search.
+ * Stored notes are private copies, so callers may freely modify the
+ * objects they pass in or get back.
+ * IDs for new notes come from a persistent IdSequence, so an ID is not
+ * reused after its note is deleted, across restarts too.
+ */
+public class TripNoteRepository {
+
+    private static final Comparator<TripNote> BY_TIMESTAMP = new Comparator<TripNote>() {
+        @Override
+        public int compare(TripNote n1, TripNote n2) {
+            int result = Long.compare(n1.getTimestamp(), n2.getTimestamp());
+            return result != 0 ? result : Integer.compare(n1.getId(), n2.getId());
+        }
+    };
+
+    private static final String ID_SEQUENCE_KEY = "trip_notes";
+
+    private static TripNoteRepository instance;
+
+    private final NoteStorageEngine storageEngine;
+    private final IdSequence idSequence;
+    private final IntObjectMap<TripNote> notesById = new IntObjectMap<>();
+    private final TreeSet<TripNote> notesByTimestamp = new TreeSet<>(BY_TIMESTAMP);
+    private final TextIndex textIndex = new TextIndex();
+    private int maxId;
+    private boolean loaded;
+
+    /**
+     * Get the repository backing TripNotesManager
+     */
+    public static synchronized TripNoteRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new TripNoteRepository(JournalNoteStorageEngine.getInstance(context),
+                    context.getApplicationContext().getSharedPreferences(IdSequence.PREF_NAME, Context.MODE_PRIVATE),
+                    ID_SEQUENCE_KEY);
+        }
+        return instance;
+    }
+
+    /**
+     * @param storageEngine Engine the notes are loaded from and written to
+     * @param idPreferences Preferences to persist the ID sequence in
+     * @param idKey Preference key of the ID sequence, unique per engine
+     */
+    public TripNoteRepository(NoteStorageEngine storageEngine, SharedPreferences idPreferences, String idKey) {
+        this.storageEngine = storageEngine;
+        this.idSequence = new IdSequence(idPreferences, idKey, this::maxId);
+    }
+
+    /**
+     * Get a note by ID
+     * @return Copy of the note, or null if not found
+     */
+    public synchronized TripNote get(int noteId) {
+        ensureLoaded();
+        TripNote note = notesById.get(noteId);
+        return note != null ? new TripNote(note) : null;
+    }
+
+    public synchronized boolean contains(int noteId) {
+        ensureLoaded();
+        return notesById.containsKey(noteId);
+    }
+
+    /**
+     * Get all notes, oldest first
+     * @return Copies of all notes
+     */
+    public synchronized List<TripNote> getAll() {
+        ensureLoaded();
+        List<TripNote> result = new ArrayList<>(notesByTimestamp.size());
+        for (TripNote note : notesByTimestamp) {
+            result.add(new TripNote(note));
+        }
+        return result;
+    }
+
+    /**
+     * Find notes whose title or description contain every word of a query,
+     * each word matched as a prefix
+     * @return Matching note IDs in ascending order
+     */
+    public int[] search(String query) {
+        synchronized (this) {
+            ensureLoaded();
+        }
+        return textIndex.search(query);
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return notesById.size();
+    }
+
+    /**
+     * Highest ID ever seen by this repository. Does not go down on delete.
+     */
+    public synchronized int maxId() {
+        ensureLoaded();
+        return maxId;
+    }
+
+    /**
+     * Allocate an ID for a new note
+     */
+    public synchronized int nextId() {
+        return reserveIds(1);
+    }
+
+    /**
+     * Allocate consecutive IDs for a batch of new notes
+     * @return The first of count IDs
+     */
+    public synchronized int reserveIds(int count) {
+        ensureLoaded();
+        idSequence.skipPast(maxId); // notes put with IDs of their own
+        return idSequence.reserve(count);
+    }
+
+    /**
+     * Insert a note or replace the note with the same ID, and persist it
+     */
+    public synchronized void put(TripNote note) {
+        ensureLoaded();
+        TripNote stored = new TripNote(note);
+        index(stored);
+        storageEngine.put(stored);
+    }
+
+    /**
+     * Insert or replace several notes, persisted as a single write
+     */
+    public synchronized void putAll(List<TripNote> notes) {
+        ensureLoaded();
+        List<TripNote> stored = new ArrayList<>(notes.size());
+        for (TripNote note : notes) {
+            TripNote copy = new TripNote(note);
+            index(copy);
+            stored.add(copy);
+        }
+        storageEngine.putAll(stored);
+    }
+
+    /**
+     * Delete a note and persist the deletion
+     * @return true if the note existed
+     */
+    public synchronized boolean delete(int noteId) {
+        ensureLoaded();
+        TripNote removed = notesById.remove(noteId);
+        if (removed == null) {
+            return false;
+        }
+        notesByTimestamp.remove(removed);
+        textIndex.remove(noteId);
+        storageEngine.delete(noteId);
+        return true;
+    }
+
+    /**
+     * Delete several notes, persisted as a single write
+     * @return For each ID, whether the note existed
+     */
+    public synchronized boolean[] deleteAll(int[] noteIds) {
+        ensureLoaded();
+        boolean[] removed = new boolean[noteIds.length];
+        for (int i = 0; i < noteIds.length; i++) {
+            TripNote note = notesById.remove(noteIds[i]);
+            if (note != null) {
+                notesByTimestamp.remove(note);
+                textIndex.remove(noteIds[i]);
+                removed[i] = true;
+            }
+        }
+        storageEngine.deleteAll(noteIds);
+        return removed;
+    }
+
+    /**
+     * Delete all notes
+     */
+    public synchronized void clear() {
+        ensureLoaded();
+        notesById.clear();
+        notesByTimestamp.clear();
+        textIndex.clear();
+        storageEngine.clear();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        for (TripNote note : storageEngine.loadAll()) {
+            index(note);
+        }
+    }
+
+    private void index(TripNote note) {
+        TripNote previous = notesById.put(note.getId(), note);
+        if (previous != null) {
+            notesByTimestamp.remove(previous);
+        }
+        notesByTimestamp.add(note);
+        textIndex.put(note.getId(), note.getTitle(), note.getDescription());
+        if (note.getId() > maxId) {
+            maxId = note.getId();
+        }
+    }
+}
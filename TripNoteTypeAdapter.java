@@ -0,0 +1,71 @@
+package com.example.travelplane.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Hand-written streaming Gson adapter for TripNote.
+ * Avoids per-field reflection; field names match the reflective format,
+ * so existing JSON data stays readable.
+ */
+public class TripNoteTypeAdapter extends TypeAdapter<TripNote> {
+
+    @Override
+    public void write(JsonWriter out, TripNote note) throws IOException {
+        if (note == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(note.getId());
+        if (note.getTitle() != null) {
+            out.name("title").value(note.getTitle());
+        }
+        if (note.getDescription() != null) {
+            out.name("description").value(note.getDescription());
+        }
+        out.name("timestamp").value(note.getTimestamp());
+        if (note.getImageUri() != null) {
+            out.name("imageUri").value(note.getImageUri());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public TripNote read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        TripNote note = new TripNote();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    note.setId(in.nextInt());
+                    break;
+                case "title":
+                    note.setTitle(ModelJson.nextNullableString(in));
+                    break;
+                case "description":
+                    note.setDescription(ModelJson.nextNullableString(in));
+                    break;
+                case "timestamp":
+                    note.setTimestamp(in.nextLong());
+                    break;
+                case "imageUri":
+                    note.setImageUri(ModelJson.nextNullableString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return note;
+    }
+}
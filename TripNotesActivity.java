@@ -16,21 +16,25 @@ import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.appcompat.widget.Toolbar;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.travelplane.adapters.TripNotesAdapter;
-import com.example.travelplane.models.Destination;
 import com.example.travelplane.models.TripNote;
-import com.example.travelplane.utils.DestinationStorage;
-import com.example.travelplane.utils.TripNotesManager;
+import com.example.travelplane.storage.WriteBehindScheduler;
+import com.example.travelplane.utils.ThumbnailLoader;
 import com.example.travelplane.utils.ValidationUtils;
+import com.example.travelplane.viewmodels.LoadState;
+import com.example.travelplane.viewmodels.TripNotesViewModel;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -44,13 +48,16 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
     private FloatingActionButton fabAddNote;
 
     private TripNotesAdapter adapter;
-    private TripNotesManager notesManager;
-    private DestinationStorage destinationStorage;
+    private TripNotesViewModel viewModel;
     private boolean isGridView = false;
+    private List<TripNote> loadedNotes = new ArrayList<>();
+    private String searchQuery = "";
 
     private Uri selectedImageUri;
     private ActivityResultLauncher<String> imagePickerLauncher;
     private TripNote editingNote; // For edit mode
+    private ImageView dialogPreview; // Preview of the open note dialog, if any
+    private View dialogRemoveImage;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -66,6 +73,7 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
                         // Grant persistent permission
                         getContentResolver().takePersistableUriPermission(uri,
                                 Intent.FLAG_GRANT_READ_URI_PERMISSION);
+                        showPreview();
                     }
                 });
 
@@ -77,18 +85,17 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
             getSupportActionBar().setTitle("Trip Notes");
         }
 
-        // Initialize manager
-        notesManager = new TripNotesManager(this);
-        destinationStorage = new DestinationStorage(this);
-
         // Initialize views
         initViews();
 
         // Setup RecyclerView
         setupRecyclerView();
 
-        // Load notes
-        loadNotes();
+        // Load notes in the background; after a configuration change the last result is reused
+        viewModel = new ViewModelProvider(this).get(TripNotesViewModel.class);
+        viewModel.getState().observe(this, this::showNotes);
+        viewModel.getSearchResult().observe(this, this::showSearchResult);
+        viewModel.load();
 
         // Setup FAB click listener
         fabAddNote.setOnClickListener(v -> showAddNoteDialog());
@@ -113,10 +120,52 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
     }
 
     /**
-     * Load notes from storage
+     * Show loaded notes; while loading, the current list stays on screen
+     */
+    private void showNotes(LoadState<List<TripNote>> state) {
+        if (state.isLoading()) {
+            return;
+        }
+        if (state.getError() != null) {
+            Toast.makeText(this, "Failed to load notes", Toast.LENGTH_SHORT).show();
+        }
+
+        loadedNotes = state.getData() != null ? state.getData() : new ArrayList<TripNote>();
+        showMatchingNotes();
+    }
+
+    /**
+     * Show the loaded notes that match the search query, all of them if it is empty.
+     * A search runs in the background and is shown by showSearchResult().
+     */
+    private void showMatchingNotes() {
+        if (searchQuery.isEmpty()) {
+            showNoteList(loadedNotes);
+        } else {
+            viewModel.search(searchQuery);
+        }
+    }
+
+    /**
+     * Show the loaded notes found by the search for the current query
      */
-    private void loadNotes() {
-        List<TripNote> notes = notesManager.getAllNotes();
+    private void showSearchResult(TripNotesViewModel.SearchResult result) {
+        // Ignore a result for an older query, e.g. from before a configuration change
+        if (searchQuery.isEmpty() || !result.getQuery().equals(searchQuery)) {
+            return;
+        }
+        int[] ids = result.getIds();
+        List<TripNote> notes = new ArrayList<>(Math.min(ids.length, loadedNotes.size()));
+        for (TripNote note : loadedNotes) {
+            if (Arrays.binarySearch(ids, note.getId()) >= 0) {
+                notes.add(note);
+            }
+        }
+        showNoteList(notes);
+    }
+
+    private void showNoteList(List<TripNote> notes) {
+        adapter.setNotes(notes); // diffed against the current list
 
         if (notes.isEmpty()) {
             tvEmptyState.setVisibility(View.VISIBLE);
@@ -124,7 +173,6 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
         } else {
             tvEmptyState.setVisibility(View.GONE);
             recyclerView.setVisibility(View.VISIBLE);
-            adapter.setNotes(notes);
         }
     }
 
@@ -152,6 +200,8 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
         MaterialButton btnSelectImage = dialogView.findViewById(R.id.btnSelectImage);
         MaterialButton btnRemoveImage = dialogView.findViewById(R.id.btnRemoveImage);
         ImageView ivPreview = dialogView.findViewById(R.id.ivPreview);
+        dialogPreview = ivPreview;
+        dialogRemoveImage = btnRemoveImage;
 
         // Pre-fill if editing
         if (isEditMode) {
@@ -159,28 +209,17 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
             etDescription.setText(note.getDescription());
             if (note.getImageUri() != null && !note.getImageUri().isEmpty()) {
                 selectedImageUri = Uri.parse(note.getImageUri());
-                ivPreview.setImageURI(selectedImageUri);
-                ivPreview.setVisibility(View.VISIBLE);
-                btnRemoveImage.setVisibility(View.VISIBLE);
+                showPreview();
             }
         }
 
-        // Image selection button
-        btnSelectImage.setOnClickListener(v -> {
-            imagePickerLauncher.launch("image/*");
-            // Update preview after selection
-            new android.os.Handler().postDelayed(() -> {
-                if (selectedImageUri != null) {
-                    ivPreview.setImageURI(selectedImageUri);
-                    ivPreview.setVisibility(View.VISIBLE);
-                    btnRemoveImage.setVisibility(View.VISIBLE);
-                }
-            }, 500);
-        });
+        // Image selection button; the preview is updated when the picker returns
+        btnSelectImage.setOnClickListener(v -> imagePickerLauncher.launch("image/*"));
 
         // Remove image button
         btnRemoveImage.setOnClickListener(v -> {
             selectedImageUri = null;
+            ThumbnailLoader.getInstance(this).cancel(ivPreview);
             ivPreview.setVisibility(View.GONE);
             btnRemoveImage.setVisibility(View.GONE);
         });
@@ -191,6 +230,11 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
                 .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss());
 
         AlertDialog dialog = builder.create();
+        dialog.setOnDismissListener(d -> {
+            ThumbnailLoader.getInstance(this).cancel(ivPreview);
+            dialogPreview = null;
+            dialogRemoveImage = null;
+        });
         dialog.show();
 
         // Override positive button to prevent auto-dismiss
@@ -210,13 +254,14 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
             }
 
             if (isEditMode) {
-                // Update existing note
-                editingNote.setTitle(title);
-                editingNote.setDescription(description);
-                editingNote.setImageUri(selectedImageUri != null ? selectedImageUri.toString() : editingNote.getImageUri());
-
-                // Update in storage
-                notesManager.updateNote(editingNote);
+                // Update a copy; the adapter's list must not change under its differ
+                TripNote updatedNote = new TripNote(editingNote);
+                updatedNote.setTitle(title);
+                updatedNote.setDescription(description);
+                updatedNote.setImageUri(selectedImageUri != null ? selectedImageUri.toString() : editingNote.getImageUri());
+
+                // Save in the background, then reload notes
+                viewModel.updateNote(updatedNote);
                 Toast.makeText(TripNotesActivity.this, "Note updated successfully", Toast.LENGTH_SHORT).show();
             } else {
                 // Create and save new note
@@ -225,24 +270,27 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
                 newNote.setDescription(description);
                 newNote.setImageUri(selectedImageUri != null ? selectedImageUri.toString() : null);
 
-                notesManager.addNote(newNote);
+                // Save with a matching destination in the background, then reload notes
+                viewModel.addNote(newNote);
                 Toast.makeText(TripNotesActivity.this, "Note added successfully", Toast.LENGTH_SHORT).show();
-
-                // Also add to destinations list
-                Destination destination = new Destination();
-                destination.setId(destinationStorage.nextId());
-                destination.setUserId(999); // mark as user-created
-                destination.setTitle(newNote.getTitle());
-                destination.setBody(newNote.getDescription());
-                destinationStorage.addDestination(destination);
             }
 
-            // Reload notes
-            loadNotes();
             dialog.dismiss();
         });
     }
 
+    /**
+     * Show the selected image in the open note dialog, downsampled in the background
+     */
+    private void showPreview() {
+        if (dialogPreview == null || selectedImageUri == null) {
+            return;
+        }
+        dialogPreview.setVisibility(View.VISIBLE);
+        dialogRemoveImage.setVisibility(View.VISIBLE);
+        ThumbnailLoader.getInstance(this).load(selectedImageUri.toString(), dialogPreview);
+    }
+
     @Override
     public void onEditNote(TripNote note, int position) {
         showNoteDialog(note);
@@ -255,9 +303,9 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
                 .setTitle("Delete Note")
                 .setMessage("Are you sure you want to delete this note?")
                 .setPositiveButton("Delete", (dialog, which) -> {
-                    notesManager.deleteNote(noteId);
+                    // Delete in the background, then reload notes
+                    viewModel.deleteNote(noteId);
                     Toast.makeText(TripNotesActivity.this, "Note deleted", Toast.LENGTH_SHORT).show();
-                    loadNotes();
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
@@ -266,9 +314,37 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_trip_notes, menu);
+        addSearchItem(menu);
         return true;
     }
 
+    /**
+     * Add a search field to the toolbar that filters the notes on every keystroke
+     */
+    private void addSearchItem(Menu menu) {
+        SearchView searchView = new SearchView(this);
+        searchView.setQueryHint("Search notes");
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                searchQuery = newText.trim();
+                showMatchingNotes();
+                return true;
+            }
+        });
+
+        MenuItem searchItem = menu.add(Menu.NONE, Menu.NONE, 0, "Search");
+        searchItem.setIcon(android.R.drawable.ic_menu_search);
+        searchItem.setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM | MenuItem.SHOW_AS_ACTION_COLLAPSE_ACTION_VIEW);
+        searchItem.setActionView(searchView);
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == R.id.action_toggle_view) {
@@ -304,18 +380,21 @@ public class TripNotesActivity extends AppCompatActivity implements TripNotesAda
                 .setTitle("Delete All Notes")
                 .setMessage("Are you sure you want to delete all notes? This cannot be undone.")
                 .setPositiveButton("Delete All", (dialog, which) -> {
-                    // Clear all notes
-                    getSharedPreferences("TravelPlannerNotes", MODE_PRIVATE)
-                            .edit()
-                            .clear()
-                            .apply();
+                    // Clear all notes in the background, then reload notes
+                    viewModel.deleteAllNotes();
                     Toast.makeText(this, "All notes deleted", Toast.LENGTH_SHORT).show();
-                    loadNotes();
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
     }
 
+    @Override
+    protected void onPause() {
+        // Don't keep pending note/destination writes while in the background
+        WriteBehindScheduler.getInstance().flushNow();
+        super.onPause();
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         onBackPressed();
@@ -7,23 +7,70 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.travelplane.R;
 import com.example.travelplane.models.TripNote;
+import com.example.travelplane.utils.ThumbnailLoader;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 /**
  * Adapter for displaying Trip Notes in RecyclerView
+ * List updates are diffed on a background thread by AsyncListDiffer,
+ * matching notes by ID, so only inserted, removed, moved or changed rows
+ * are rebound. Changed rows get a payload of changed fields and only
+ * those views are updated.
  */
 public class TripNotesAdapter extends RecyclerView.Adapter<TripNotesAdapter.TripNoteViewHolder> {
 
-    private List<TripNote> notes;
+    // Change payload flags, combined into an Integer
+    public static final int PAYLOAD_TITLE = 1;
+    public static final int PAYLOAD_DESCRIPTION = 1 << 1;
+    public static final int PAYLOAD_IMAGE = 1 << 2;
+    public static final int PAYLOAD_DATE = 1 << 3;
+
+    private static final DiffUtil.ItemCallback<TripNote> DIFF_CALLBACK = new DiffUtil.ItemCallback<TripNote>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull TripNote oldNote, @NonNull TripNote newNote) {
+            return oldNote.getId() == newNote.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull TripNote oldNote, @NonNull TripNote newNote) {
+            return oldNote.getTimestamp() == newNote.getTimestamp()
+                    && Objects.equals(oldNote.getTitle(), newNote.getTitle())
+                    && Objects.equals(oldNote.getDescription(), newNote.getDescription())
+                    && Objects.equals(oldNote.getImageUri(), newNote.getImageUri());
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull TripNote oldNote, @NonNull TripNote newNote) {
+            int changes = 0;
+            if (!Objects.equals(oldNote.getTitle(), newNote.getTitle())) {
+                changes |= PAYLOAD_TITLE;
+            }
+            if (!Objects.equals(oldNote.getDescription(), newNote.getDescription())) {
+                changes |= PAYLOAD_DESCRIPTION;
+            }
+            if (!Objects.equals(oldNote.getImageUri(), newNote.getImageUri())) {
+                changes |= PAYLOAD_IMAGE;
+            }
+            if (oldNote.getTimestamp() != newNote.getTimestamp()) {
+                changes |= PAYLOAD_DATE;
+            }
+            return changes;
+        }
+    };
+
+    private final AsyncListDiffer<TripNote> differ;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
     private OnNoteDeleteListener deleteListener;
 
     /**
@@ -35,8 +82,9 @@ public class TripNotesAdapter extends RecyclerView.Adapter<TripNotesAdapter.Trip
     }
 
     public TripNotesAdapter(OnNoteDeleteListener deleteListener) {
-        this.notes = new ArrayList<>();
+        this.differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
         this.deleteListener = deleteListener;
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -49,22 +97,47 @@ public class TripNotesAdapter extends RecyclerView.Adapter<TripNotesAdapter.Trip
 
     @Override
     public void onBindViewHolder(@NonNull TripNoteViewHolder holder, int position) {
-        TripNote note = notes.get(position);
-        holder.bind(note, position);
+        holder.bind(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TripNoteViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        int changes = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof Integer) {
+                changes |= (Integer) payload;
+            }
+        }
+        holder.bindChanges(differ.getCurrentList().get(position), changes);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull TripNoteViewHolder holder) {
+        holder.recycle();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
     }
 
     @Override
     public int getItemCount() {
-        return notes.size();
+        return differ.getCurrentList().size();
     }
 
     /**
-     * Update the notes list
-     * @param notes New list of trip notes
+     * Update the notes list. The diff runs in the background and the
+     * change events are dispatched on the main thread.
+     * @param notes New list of trip notes; must not be modified afterwards
      */
     public void setNotes(List<TripNote> notes) {
-        this.notes = notes;
-        notifyDataSetChanged();
+        differ.submitList(notes);
     }
 
     /**
@@ -86,47 +159,66 @@ public class TripNotesAdapter extends RecyclerView.Adapter<TripNotesAdapter.Trip
             btnDelete = itemView.findViewById(R.id.btnDeleteNote);
             btnEdit = itemView.findViewById(R.id.btnEditNote);
             ivNoteImage = itemView.findViewById(R.id.ivNoteImage);
+
+            // Listeners are set once; rows can move without a rebind, so look the note up at click time
+            btnDelete.setOnClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (deleteListener != null && position != RecyclerView.NO_POSITION) {
+                    deleteListener.onDeleteNote(differ.getCurrentList().get(position).getId(), position);
+                }
+            });
+
+            btnEdit.setOnClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (deleteListener != null && position != RecyclerView.NO_POSITION) {
+                    deleteListener.onEditNote(differ.getCurrentList().get(position), position);
+                }
+            });
         }
 
         /**
          * Bind note data to views
          * @param note TripNote object to display
-         * @param position Position in the list
          */
-        public void bind(TripNote note, int position) {
-            tvTitle.setText(note.getTitle());
-            tvDescription.setText(note.getDescription());
+        public void bind(TripNote note) {
+            bindChanges(note, PAYLOAD_TITLE | PAYLOAD_DESCRIPTION | PAYLOAD_IMAGE | PAYLOAD_DATE);
+        }
 
-            // Format timestamp to readable date
-            SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
-            String dateString = sdf.format(new Date(note.getTimestamp()));
-            tvDate.setText(dateString);
+        /**
+         * Update only the views for the changed fields
+         * @param note TripNote object to display
+         * @param changes PAYLOAD_* flags
+         */
+        public void bindChanges(TripNote note, int changes) {
+            if ((changes & PAYLOAD_TITLE) != 0) {
+                tvTitle.setText(note.getTitle());
+            }
+            if ((changes & PAYLOAD_DESCRIPTION) != 0) {
+                tvDescription.setText(note.getDescription());
+            }
+            if ((changes & PAYLOAD_DATE) != 0) {
+                // Format timestamp to readable date
+                tvDate.setText(dateFormat.format(new Date(note.getTimestamp())));
+            }
+            if ((changes & PAYLOAD_IMAGE) != 0) {
+                bindImage(note);
+            }
+        }
 
-            // Handle image display
+        private void bindImage(TripNote note) {
+            // Handle image display; decoded and downsampled in the background
             if (note.getImageUri() != null && !note.getImageUri().isEmpty()) {
                 ivNoteImage.setVisibility(android.view.View.VISIBLE);
-                try {
-                    ivNoteImage.setImageURI(android.net.Uri.parse(note.getImageUri()));
-                } catch (Exception e) {
-                    ivNoteImage.setVisibility(android.view.View.GONE);
-                }
+                ThumbnailLoader.getInstance(itemView.getContext()).load(note.getImageUri(), ivNoteImage);
             } else {
+                ThumbnailLoader.getInstance(itemView.getContext()).cancel(ivNoteImage);
                 ivNoteImage.setVisibility(android.view.View.GONE);
             }
+        }
 
-            // Set delete button click listener
-            btnDelete.setOnClickListener(v -> {
-                if (deleteListener != null) {
-                    deleteListener.onDeleteNote(note.getId(), position);
-                }
-            });
-
-            // Set edit button click listener
-            btnEdit.setOnClickListener(v -> {
-                if (deleteListener != null) {
-                    deleteListener.onEditNote(note, position);
-                }
-            });
+        void recycle() {
+            // Don't decode an image nobody will see
+            ThumbnailLoader.getInstance(itemView.getContext()).cancel(ivNoteImage);
         }
     }
 }
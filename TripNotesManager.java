@@ -1,32 +1,27 @@
 package com.example.travelplane.utils;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 
 import com.example.travelplane.models.TripNote;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.example.travelplane.storage.TripNoteRepository;
 
-import java.lang.reflect.Type;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Trip Notes Manager to handle trip notes storage
- * Uses SharedPreferences to store notes locally
+ * Reads and writes through the shared in-memory TripNoteRepository,
+ * which persists each mutation to its storage engine
  */
 public class TripNotesManager {
-    private static final String PREF_NAME = "TravelPlannerNotes";
-    private static final String KEY_NOTES = "notes";
 
-    private SharedPreferences preferences;
-    private SharedPreferences.Editor editor;
-    private Gson gson;
+    private final TripNoteRepository repository;
 
     public TripNotesManager(Context context) {
-        preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        editor = preferences.edit();
-        gson = new Gson();
+        this(TripNoteRepository.getInstance(context));
+    }
+
+    public TripNotesManager(TripNoteRepository repository) {
+        this.repository = repository;
     }
 
     /**
@@ -34,15 +29,11 @@ public class TripNotesManager {
      * @param note TripNote object to add
      */
     public void addNote(TripNote note) {
-        List<TripNote> notes = getAllNotes();
-
         // Generate unique ID
-        int newId = notes.isEmpty() ? 1 : notes.get(notes.size() - 1).getId() + 1;
-        note.setId(newId);
+        note.setId(repository.nextId());
         note.setTimestamp(System.currentTimeMillis());
 
-        notes.add(note);
-        saveNotes(notes);
+        repository.put(note);
     }
 
     /**
@@ -50,15 +41,7 @@ public class TripNotesManager {
      * @param noteId ID of the note to delete
      */
     public void deleteNote(int noteId) {
-        List<TripNote> notes = getAllNotes();
-        // Compatible with API 21+ - use iterator instead of removeIf
-        for (int i = 0; i < notes.size(); i++) {
-            if (notes.get(i).getId() == noteId) {
-                notes.remove(i);
-                break;
-            }
-        }
-        saveNotes(notes);
+        repository.delete(noteId);
     }
 
     /**
@@ -66,47 +49,41 @@ public class TripNotesManager {
      * @param updatedNote The note with updated values
      */
     public void updateNote(TripNote updatedNote) {
-        List<TripNote> notes = getAllNotes();
-        for (int i = 0; i < notes.size(); i++) {
-            if (notes.get(i).getId() == updatedNote.getId()) {
-                notes.set(i, updatedNote);
-                break;
-            }
+        if (repository.contains(updatedNote.getId())) {
+            repository.put(updatedNote);
         }
-        saveNotes(notes);
     }
 
     /**
-     * Get all trip notes
-     * @return List of all trip notes
+     * Delete all trip notes
      */
-    public List<TripNote> getAllNotes() {
-        String notesJson = preferences.getString(KEY_NOTES, "");
+    public void deleteAllNotes() {
+        repository.clear();
+    }
 
-        if (notesJson.isEmpty()) {
-            return new ArrayList<>();
-        }
+    /**
+     * Get a single trip note
+     * @param noteId ID of the note
+     * @return The note, or null if not found
+     */
+    public TripNote getNote(int noteId) {
+        return repository.get(noteId);
+    }
 
-        try {
-            Type type = new TypeToken<List<TripNote>>() {}.getType();
-            List<TripNote> notes = gson.fromJson(notesJson, type);
-            return notes != null ? notes : new ArrayList<>();
-        } catch (Exception e) {
-            // If JSON is corrupted, return empty list and clear preferences
-            editor.remove(KEY_NOTES);
-            editor.apply();
-            return new ArrayList<>();
-        }
+    /**
+     * Get all trip notes
+     * @return List of all trip notes, oldest first
+     */
+    public List<TripNote> getAllNotes() {
+        return repository.getAll();
     }
 
     /**
-     * Save notes list to SharedPreferences
-     * @param notes List of notes to save
+     * Search trip notes by title and description
+     * @param query Words to find; each matches as a prefix, so it works while typing
+     * @return IDs of the matching notes in ascending order
      */
-    private void saveNotes(List<TripNote> notes) {
-        String notesJson = gson.toJson(notes);
-        editor.putString(KEY_NOTES, notesJson);
-        editor.apply();
+    public int[] searchNotes(String query) {
+        return repository.search(query);
     }
 }
-
@@ -0,0 +1,124 @@
+package com.example.travelplane.viewmodels;
+
+import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.travelplane.models.Destination;
+import com.example.travelplane.models.TripNote;
+import com.example.travelplane.utils.DestinationStorage;
+import com.example.travelplane.utils.TripNotesManager;
+
+import java.util.List;
+
+/**
+ * Loads and saves the trip notes for TripNotesActivity off the main thread
+ */
+public class TripNotesViewModel extends BackgroundLoadViewModel<List<TripNote>> {
+
+    private final TripNotesManager notesManager;
+    private final DestinationStorage destinationStorage;
+    private final MutableLiveData<SearchResult> searchResult = new MutableLiveData<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int searchGeneration;
+
+    public TripNotesViewModel(@NonNull Application application) {
+        super(application);
+        notesManager = new TripNotesManager(application);
+        destinationStorage = new DestinationStorage(application);
+    }
+
+    /**
+     * Add a note and a user destination with the same title and description
+     * in the background, then reload
+     */
+    public void addNote(final TripNote note) {
+        reloadAfter(() -> {
+            notesManager.addNote(note);
+
+            Destination destination = new Destination();
+            destination.setId(destinationStorage.nextId());
+            destination.setUserId(Destination.USER_CREATED_USER_ID);
+            destination.setTitle(note.getTitle());
+            destination.setBody(note.getDescription());
+            destinationStorage.addDestination(destination);
+        });
+    }
+
+    /**
+     * Save an edited note in the background, then reload
+     */
+    public void updateNote(final TripNote note) {
+        reloadAfter(() -> notesManager.updateNote(note));
+    }
+
+    /**
+     * Delete a note in the background, then reload
+     */
+    public void deleteNote(final int noteId) {
+        reloadAfter(() -> notesManager.deleteNote(noteId));
+    }
+
+    /**
+     * Delete all notes in the background, then reload
+     */
+    public void deleteAllNotes() {
+        reloadAfter(notesManager::deleteAllNotes);
+    }
+
+    public LiveData<SearchResult> getSearchResult() {
+        return searchResult;
+    }
+
+    /**
+     * Find the notes matching a query in the background, superseding any
+     * search in progress. Must be called on the main thread.
+     */
+    public void search(final String query) {
+        final int current = ++searchGeneration;
+        execute(() -> {
+            final SearchResult result = new SearchResult(query, notesManager.searchNotes(query));
+            mainHandler.post(() -> {
+                if (current == searchGeneration) {
+                    searchResult.setValue(result);
+                }
+            });
+        });
+    }
+
+    @Override
+    protected List<TripNote> loadInBackground() {
+        return notesManager.getAllNotes();
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        searchGeneration++;
+    }
+
+    /**
+     * IDs of the notes matching a query, in ascending order
+     */
+    public static final class SearchResult {
+        private final String query;
+        private final int[] ids;
+
+        SearchResult(String query, int[] ids) {
+            this.query = query;
+            this.ids = ids;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public int[] getIds() {
+            return ids;
+        }
+    }
+}
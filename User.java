@@ -1,8 +1,11 @@
 package com.example.travelplane.models;
 
+import com.google.gson.annotations.JsonAdapter;
+
 /**
  * Model class representing a User.
  */
+@JsonAdapter(UserTypeAdapter.class)
 public class User {
 
     private String name;
@@ -19,6 +22,14 @@ public class User {
         this.name = name;
     }
 
+    /**
+     * Copy constructor
+     * @param other User to copy
+     */
+    public User(User other) {
+        this(other.email, other.password, other.name);
+    }
+
     public String getName() {
         return name;
     }
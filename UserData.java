@@ -0,0 +1,45 @@
+package com.example.travelplane.backend;
+
+import com.example.travelplane.models.Destination;
+import com.example.travelplane.models.TripNote;
+import com.example.travelplane.models.User;
+
+import java.util.List;
+
+/**
+ * A user's profile, trip notes and cached destinations, loaded together
+ * by BackendService.loadUserData
+ */
+public class UserData {
+
+    private User user;
+    private List<TripNote> notes;
+    private List<Destination> destinations;
+
+    UserData() {
+    }
+
+    void setUser(User user) {
+        this.user = user;
+    }
+
+    void setNotes(List<TripNote> notes) {
+        this.notes = notes;
+    }
+
+    void setDestinations(List<Destination> destinations) {
+        this.destinations = destinations;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public List<TripNote> getNotes() {
+        return notes;
+    }
+
+    public List<Destination> getDestinations() {
+        return destinations;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.travelplane.storage;
+
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.travelplane.models.ModelJson;
+import com.example.travelplane.models.User;
+import com.google.gson.stream.JsonReader;
+
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * User store with a persistent hash index keyed on normalized email.
+ * Each user is kept as its own JSON entry in a SharedPreferences file, so
+ * a lookup or update only deserializes the one record it touches, using
+ * the streaming UserTypeAdapter.
+ * Users saved in the old single-blob format are migrated on first use.
+ */
+public class UserStore {
+
+    private static final String TAG = "UserStore";
+
+    private final SharedPreferences index;
+    private final SharedPreferences legacyPreferences;
+    private final String legacyKey;
+
+    private boolean migrated;
+
+    /**
+     * @param index Preferences file holding one entry per user
+     * @param legacyPreferences Preferences holding the old users JSON list, may be null
+     * @param legacyKey Key of the old users JSON list
+     */
+    public UserStore(SharedPreferences index, SharedPreferences legacyPreferences, String legacyKey) {
+        this.index = index;
+        this.legacyPreferences = legacyPreferences;
+        this.legacyKey = legacyKey;
+    }
+
+    /**
+     * Normalize an email for use as an index key
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Find a user by email
+     * @return The user, or null if not found
+     */
+    public synchronized User find(String email) {
+        ensureMigrated();
+        String json = index.getString(normalizeEmail(email), null);
+        if (json == null) {
+            return null;
+        }
+
+        try {
+            return ModelJson.USER.fromJson(json);
+        } catch (Exception e) {
+            Log.w(TAG, "Dropping unreadable user record", e);
+            index.edit().remove(normalizeEmail(email)).apply();
+            return null;
+        }
+    }
+
+    public synchronized boolean contains(String email) {
+        ensureMigrated();
+        return index.contains(normalizeEmail(email));
+    }
+
+    /**
+     * Add a new user
+     * @return false if a user with the same email already exists
+     */
+    public synchronized boolean insert(User user) {
+        if (contains(user.getEmail())) {
+            return false;
+        }
+        write(user);
+        return true;
+    }
+
+    /**
+     * Replace an existing user
+     * @return false if no user with that email exists
+     */
+    public synchronized boolean update(User user) {
+        if (!contains(user.getEmail())) {
+            return false;
+        }
+        write(user);
+        return true;
+    }
+
+    private void write(User user) {
+        index.edit().putString(normalizeEmail(user.getEmail()), ModelJson.USER.toJson(user)).apply();
+    }
+
+    /**
+     * Copy users out of the old JSON list into the index, once
+     */
+    private void ensureMigrated() {
+        if (migrated) {
+            return;
+        }
+        migrated = true;
+
+        if (legacyPreferences == null || !legacyPreferences.contains(legacyKey)) {
+            return;
+        }
+
+        try {
+            JsonReader in = new JsonReader(new StringReader(legacyPreferences.getString(legacyKey, "")));
+            List<User> users = ModelJson.readList(in, ModelJson.USER);
+
+            SharedPreferences.Editor editor = index.edit();
+            HashSet<String> seen = new HashSet<>();
+            for (User user : users) {
+                String key = normalizeEmail(user.getEmail());
+                // The old format matched emails exactly; keep the first of any case variants
+                if (seen.add(key) && !index.contains(key)) {
+                    editor.putString(key, ModelJson.USER.toJson(user));
+                }
+            }
+            editor.apply();
+        } catch (Exception e) {
+            Log.e(TAG, "Discarding unreadable legacy users", e);
+        }
+        legacyPreferences.edit().remove(legacyKey).apply();
+    }
+}
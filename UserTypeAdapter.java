@@ -0,0 +1,61 @@
+package com.example.travelplane.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Hand-written streaming Gson adapter for User.
+ */
+public class UserTypeAdapter extends TypeAdapter<User> {
+
+    @Override
+    public void write(JsonWriter out, User user) throws IOException {
+        if (user == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (user.getName() != null) {
+            out.name("name").value(user.getName());
+        }
+        if (user.getPassword() != null) {
+            out.name("password").value(user.getPassword());
+        }
+        if (user.getEmail() != null) {
+            out.name("email").value(user.getEmail());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public User read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        User user = new User();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "name":
+                    user.setName(ModelJson.nextNullableString(in));
+                    break;
+                case "password":
+                    user.setPassword(ModelJson.nextNullableString(in));
+                    break;
+                case "email":
+                    user.setEmail(ModelJson.nextNullableString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return user;
+    }
+}
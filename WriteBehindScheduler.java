@@ -0,0 +1,109 @@
+package com.example.travelplane.storage;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared write-behind layer for the storage classes.
+ * A storage class registers one Flusher per dataset and calls markDirty
+ * after each in-memory mutation. Dirty datasets are flushed together on a
+ * background thread once the debounce window passes, so a burst of
+ * mutations costs one serialization and one disk write per dataset.
+ * Activities call flushNow from onPause so pending writes are not held
+ * while the app is in the background.
+ */
+public final class WriteBehindScheduler {
+
+    private static final String TAG = "WriteBehind";
+    private static final long DEBOUNCE_MS = 250;
+
+    /**
+     * Writes the current snapshot of one dataset to disk.
+     * Always called on the write-behind thread.
+     */
+    public interface Flusher {
+        void flush();
+    }
+
+    private static WriteBehindScheduler instance;
+
+    private final ScheduledExecutorService executor;
+    private final Map<String, Flusher> flushers = new HashMap<>();
+    private final LinkedHashSet<String> dirty = new LinkedHashSet<>();
+    private ScheduledFuture<?> pendingFlush;
+
+    public static synchronized WriteBehindScheduler getInstance() {
+        if (instance == null) {
+            instance = new WriteBehindScheduler();
+        }
+        return instance;
+    }
+
+    private WriteBehindScheduler() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    /**
+     * Register the flusher for a dataset. Registering again replaces it.
+     * @param dataset Unique dataset name, e.g. a preferences key or file path
+     */
+    public synchronized void register(String dataset, Flusher flusher) {
+        flushers.put(dataset, flusher);
+    }
+
+    /**
+     * Mark a dataset as changed. It is flushed within the debounce window,
+     * together with any other dataset marked in the meantime.
+     */
+    public synchronized void markDirty(String dataset) {
+        dirty.add(dataset);
+        if (pendingFlush == null) {
+            pendingFlush = executor.schedule(this::flushDirty, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Flush all dirty datasets on the background thread without waiting
+     * for the debounce window
+     */
+    public synchronized void flushNow() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+        }
+        pendingFlush = executor.schedule(this::flushDirty, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private void flushDirty() {
+        List<Flusher> toFlush = new ArrayList<>();
+        synchronized (this) {
+            for (String dataset : dirty) {
+                Flusher flusher = flushers.get(dataset);
+                if (flusher != null) {
+                    toFlush.add(flusher);
+                }
+            }
+            dirty.clear();
+            pendingFlush = null;
+        }
+
+        for (Flusher flusher : toFlush) {
+            try {
+                flusher.flush();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Write-behind flush failed", e);
+            }
+        }
+    }
+}